@@ -0,0 +1,529 @@
+package graph;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <P>
+ * The part shared by every graph that can run the graph algorithms: the
+ * collection of "GraphAlgorithmObservers", and the algorithms themselves
+ * (Depth-First-Search, Breadth-First-Search, Dijkstra's and A*). The
+ * algorithms only use the IndexedGraph methods, which each subclass
+ * implements for its own representation, so they behave and notify the
+ * observers identically on every representation.
+ * </P>
+ *
+ * @param <V> type of the vertices
+ */
+public abstract class AbstractIndexedGraph<V> implements IndexedGraph<V> {
+
+	/*
+	 * Collection of observers. The graph algorithms (DFS, BFS, Dijkstra and A*)
+	 * will notify these observers to let them know how the algorithms are
+	 * progressing.
+	 */
+	private Collection<GraphAlgorithmObserver<V>> observerList;
+
+	/*
+	 * Listeners handed the SearchStats of every DFS, BFS and Dijkstra run. While
+	 * there are none (and no Flight Recorder recording wants the numbers), the
+	 * searches are not measured at all.
+	 */
+	private Collection<SearchStatsListener> statsListeners;
+
+	/**
+	 * Initialize the collection of GraphAlgorithmObservers (observerList) to
+	 * "empty".
+	 */
+	protected AbstractIndexedGraph() {
+		this(new HashSet<GraphAlgorithmObserver<V>>(), new HashSet<SearchStatsListener>());
+	}
+
+	/*
+	 * Uses the given (empty) collections for the observers and stats listeners,
+	 * so a graph that is shared between threads can pass thread-safe ones.
+	 */
+	AbstractIndexedGraph(Collection<GraphAlgorithmObserver<V>> observers,
+			Collection<SearchStatsListener> statsListeners) {
+		observerList = observers;
+		this.statsListeners = statsListeners;
+	}
+
+	/**
+	 * Add a GraphAlgorithmObserver to the collection maintained by this graph
+	 * (observerList).
+	 * 
+	 * @param observer
+	 */
+	public void addObserver(GraphAlgorithmObserver<V> observer) {
+		observerList.add(observer);
+	}
+
+	/**
+	 * Remove a GraphAlgorithmObserver added with addObserver; it is not notified
+	 * of any algorithm run from now on.
+	 * 
+	 * @param observer
+	 */
+	public void removeObserver(GraphAlgorithmObserver<V> observer) {
+		observerList.remove(observer);
+	}
+
+	/**
+	 * Add a listener that is handed the SearchStats of every DoBFS, DoDFS and
+	 * DoDijsktra this graph runs from now on.
+	 * 
+	 * @param listener
+	 */
+	public void addStatsListener(SearchStatsListener listener) {
+		statsListeners.add(listener);
+	}
+
+	/**
+	 * Remove a listener added with addStatsListener. Once none are left, the
+	 * searches are no longer measured.
+	 * 
+	 * @param listener
+	 */
+	public void removeStatsListener(SearchStatsListener listener) {
+		statsListeners.remove(listener);
+	}
+
+	/*
+	 * Starts measuring a search, or returns null if nobody wants the numbers.
+	 * The Flight Recorder event is only a check of a flag when no recording has
+	 * it enabled.
+	 */
+	private SearchStats beginStats(SearchStats.Algorithm algorithm) {
+		SearchEvent event = new SearchEvent();
+		if (statsListeners.isEmpty() && !event.isEnabled()) {
+			return null;
+		}
+		return new SearchStats(algorithm, event);
+	}
+
+	Collection<GraphAlgorithmObserver<V>> observers() {
+		return observerList;
+	}
+
+	Collection<SearchStatsListener> statsListeners() {
+		return statsListeners;
+	}
+
+	/*
+	 * The graph every algorithm below actually runs on. A graph that can change
+	 * while it is being searched returns a view that keeps the search
+	 * consistent; every other graph returns itself.
+	 */
+	IndexedGraph<V> searchGraph() {
+		return this;
+	}
+
+	private void reportStats(SearchStats stats) {
+		if (stats != null) {
+			stats.finish();
+			for (SearchStatsListener listener : statsListeners) {
+				listener.notifySearchStats(stats);
+			}
+		}
+	}
+
+	/**
+	 * <P>
+	 * This method will perform a Breadth-First-Search on the graph. The search will
+	 * begin at the "start" vertex and conclude once the "end" vertex has been
+	 * reached. Just after a particular vertex is visited, this method will go
+	 * through the collection of observers calling notifyVisit on each one (passing
+	 * in the vertex being visited as the argument.) After the "end" vertex has been
+	 * visited, this method will go through the collection of observers calling
+	 * notifySearchIsOver on each one, after which the method should terminate
+	 * immediately, without processing further vertices.
+	 * 
+	 * @param start vertex where search begins
+	 * @param end   the algorithm terminates just after this vertex is visited
+	 * @throws IllegalArgumentException if the start vertex is not in the graph
+	 */
+	public void DoBFS(V start, V end) {
+		DoBFS(start, end, new SearchWorkspace());
+	}
+
+	/**
+	 * Perform a Breadth-First-Search exactly as DoBFS(start, end) does, but keep
+	 * the bookkeeping in a workspace that can be reused for the next search.
+	 * 
+	 * @param start     vertex where search begins
+	 * @param end       the algorithm terminates just after this vertex is visited
+	 * @param workspace memory for the search, used by one thread at a time
+	 * @throws IllegalArgumentException if the start vertex is not in the graph
+	 */
+	public void DoBFS(V start, V end, SearchWorkspace workspace) {
+		SearchStats stats = beginStats(SearchStats.Algorithm.BFS);
+		GraphAlgorithms.breadthFirstSearch(searchGraph(), observerList, start, end, workspace, stats);
+		reportStats(stats);
+	}
+
+	/**
+	 * <P>
+	 * The vertices reachable from "start", in the order DoBFS visits them
+	 * (beginning with "start"), as a lazy Stream. Vertices are found only as the
+	 * stream asks for them, so limit, findFirst, anyMatch and the like stop the
+	 * search as soon as they have their answer; stream().iterator() pulls one
+	 * vertex at a time. The observers are not notified, and the graph must not
+	 * change while the stream is in use.
+	 * </P>
+	 * 
+	 * @param start vertex where the search begins
+	 * @return the vertices in breadth-first order
+	 * @throws IllegalArgumentException if the start vertex is not in the graph
+	 */
+	public Stream<V> bfs(V start) {
+		return traversal(start, false);
+	}
+
+	/**
+	 * The vertices reachable from "start", in the order DoDFS visits them, as a
+	 * lazy Stream. See bfs.
+	 * 
+	 * @param start vertex where the search begins
+	 * @return the vertices in depth-first order
+	 * @throws IllegalArgumentException if the start vertex is not in the graph
+	 */
+	public Stream<V> dfs(V start) {
+		return traversal(start, true);
+	}
+
+	private Stream<V> traversal(V start, boolean depthFirst) {
+		IndexedGraph<V> graph = searchGraph();
+		int first = graph.getIndex(start);
+		if (first == -1) {
+			throw new IllegalArgumentException();
+		}
+		return StreamSupport.stream(new TraversalSpliterator<V>(graph, first, depthFirst), false);
+	}
+
+	/**
+	 * This method will perform a Depth-First-Search on the graph. The search will
+	 * begin at the "start" vertex and conclude once the "end" vertex has been
+	 * reached. Before the search begins, this method will go through the collection
+	 * of Observers, calling notifyDFSHasBegun on each one. Just after a particular
+	 * vertex is visited, this method will go through the collection of observers
+	 * calling notifyVisit on each one (passing in the vertex being visited as the
+	 * argument). After the "end" vertex has been visited, this method will go
+	 * through the collection of observers calling notifySearchIsOver on each one,
+	 * after which the method should terminate immediately, without visiting further
+	 * vertices.
+	 * 
+	 * @param start vertex where search begins
+	 * @param end   the algorithm terminates just after this vertex is visited
+	 * @throws IllegalArgumentException if the start vertex is not in the graph
+	 */
+	public void DoDFS(V start, V end) {
+		DoDFS(start, end, new SearchWorkspace());
+	}
+
+	/**
+	 * Perform a Depth-First-Search exactly as DoDFS(start, end) does, but keep
+	 * the bookkeeping in a workspace that can be reused for the next search.
+	 * 
+	 * @param start     vertex where search begins
+	 * @param end       the algorithm terminates just after this vertex is visited
+	 * @param workspace memory for the search, used by one thread at a time
+	 * @throws IllegalArgumentException if the start vertex is not in the graph
+	 */
+	public void DoDFS(V start, V end, SearchWorkspace workspace) {
+		SearchStats stats = beginStats(SearchStats.Algorithm.DFS);
+		GraphAlgorithms.depthFirstSearch(searchGraph(), observerList, start, end, workspace, stats);
+		reportStats(stats);
+	}
+
+	/**
+	 * Perform Dijkstra's algorithm, beginning at the "start" vertex. The algorithm
+	 * DOES NOT terminate when the "end" vertex is reached. It will continue until
+	 * EVERY vertex reachable from "start" has been added to the finished set.
+	 * Before the algorithm begins, this method goes through the collection of
+	 * Observers, calling notifyDijkstraHasBegun on each Observer. Each time a
+	 * vertex is added to the "finished set", this method goes through the
+	 * collection of Observers, calling notifyDijkstraVertexFinished on each one
+	 * (passing the vertex that was just added to the finished set as the first
+	 * argument, and the optimal "cost" of the path leading to that vertex as the
+	 * second argument.) Vertices are finished in order of increasing cost. After
+	 * all of the vertices have been added to the finished set, the algorithm will
+	 * calculate the "least cost" path of vertices leading from the starting
+	 * vertex to the ending vertex. Next, it will go through the collection of
+	 * observers, calling notifyDijkstraIsOver on each one, passing in as the
+	 * argument the "lowest cost" sequence of vertices that leads from start to
+	 * end (I.e. the first vertex in the list will be the "start" vertex, and the
+	 * last vertex in the list will be the "end" vertex.) If "end" cannot be
+	 * reached from "start", the path passed to the observers is empty.
+	 * 
+	 * <P>
+	 * The costs and paths to every vertex are also returned as a
+	 * ShortestPathTree, so the path to any other vertex can be looked up without
+	 * running the algorithm again.
+	 * </P>
+	 * 
+	 * <P>
+	 * The unfinished vertices are kept in the priority queue chosen by
+	 * ShortestPathEngine.AUTO: a bucket queue when every edge weight is small, and
+	 * an indexed binary heap otherwise.
+	 * </P>
+	 * 
+	 * @param start vertex where algorithm will start
+	 * @param end   special vertex used as the end of the path reported to observers
+	 *              via the notifyDijkstraIsOver method.
+	 * @return the lowest costs of, and paths to, every vertex reachable from
+	 *         start
+	 * @throws IllegalArgumentException if the start vertex is not in the graph
+	 */
+	public ShortestPathTree<V> DoDijsktra(V start, V end) {
+		return DoDijsktra(start, end, ShortestPathEngine.AUTO);
+	}
+
+	/**
+	 * Perform Dijkstra's algorithm exactly as DoDijsktra(start, end) does, but
+	 * keep the unfinished vertices in the priority queue selected by "engine".
+	 * Every engine finishes the vertices in order of increasing cost and reports
+	 * a lowest-cost path; only the order of vertices with equal cost may differ.
+	 * 
+	 * @param start  vertex where algorithm will start
+	 * @param end    special vertex used as the end of the path reported to
+	 *               observers via the notifyDijkstraIsOver method.
+	 * @param engine priority queue used to pick the next vertex to finish
+	 * @return the lowest costs of, and paths to, every vertex reachable from
+	 *         start
+	 * @throws IllegalArgumentException if the start vertex is not in the graph
+	 */
+	public ShortestPathTree<V> DoDijsktra(V start, V end, ShortestPathEngine engine) {
+		SearchStats stats = beginStats(SearchStats.Algorithm.DIJKSTRA);
+		ShortestPathTree<V> tree = GraphAlgorithms.dijkstra(searchGraph(), observerList, start, end, engine, stats);
+		reportStats(stats);
+		return tree;
+	}
+
+	/**
+	 * Find the lowest-cost path from "start" to "end" with Dijkstra's algorithm,
+	 * stopping as soon as "end" is finished instead of carrying on over every
+	 * reachable vertex as DoDijsktra does. The observers are not notified.
+	 * 
+	 * @param start vertex where the path begins
+	 * @param end   vertex where the path ends
+	 * @return the lowest-cost path from start to end and its cost; if "end" is
+	 *         not in the graph or cannot be reached, the path is empty
+	 * @throws IllegalArgumentException if the start vertex is not in the graph
+	 */
+	public ShortestPath<V> DoDijsktraTo(V start, V end) {
+		return GraphAlgorithms.dijkstraToTargets(searchGraph(), start, Collections.singletonList(end), ShortestPathEngine.AUTO)
+				.get(end);
+	}
+
+	/**
+	 * Find the lowest-cost path from "start" to "end" exactly as
+	 * DoDijsktraTo(start, end) does, but keep the costs, predecessors and
+	 * priority queue in a workspace that can be reused for the next query. Once
+	 * the workspace has grown to the size of the graph, a query allocates
+	 * nothing but the path it returns.
+	 * 
+	 * @param start     vertex where the path begins
+	 * @param end       vertex where the path ends
+	 * @param workspace memory for the search, used by one thread at a time
+	 * @return the lowest-cost path from start to end and its cost; if "end" is
+	 *         not in the graph or cannot be reached, the path is empty
+	 * @throws IllegalArgumentException if the start vertex is not in the graph
+	 */
+	public ShortestPath<V> DoDijsktraTo(V start, V end, SearchWorkspace workspace) {
+		return GraphAlgorithms.dijkstraTo(searchGraph(), start, end, workspace);
+	}
+
+	/**
+	 * Find the lowest-cost paths from "start" to each of the "targets" with a
+	 * single run of Dijkstra's algorithm, which stops as soon as every target is
+	 * finished. The observers are not notified.
+	 * 
+	 * @param start   vertex where every path begins
+	 * @param targets vertices where the paths end
+	 * @return the lowest-cost path to each target and its cost, in the order the
+	 *         targets are given; a target that is not in the graph or cannot be
+	 *         reached has an empty path
+	 * @throws IllegalArgumentException if the start vertex is not in the graph
+	 */
+	public Map<V, ShortestPath<V>> DoDijsktraToAll(V start, Collection<? extends V> targets) {
+		return GraphAlgorithms.dijkstraToTargets(searchGraph(), start, targets, ShortestPathEngine.AUTO);
+	}
+
+	/**
+	 * <P>
+	 * Perform an A* search from the "start" vertex to the "end" vertex. A* works
+	 * like Dijkstra's algorithm, except that the next vertex to finish is the one
+	 * with the smallest cost plus heuristic estimate of the remaining cost to
+	 * "end", and the search stops as soon as "end" is finished. With a good
+	 * heuristic (such as Heuristic.manhattan on a maze, or Landmarks on any
+	 * graph) far fewer vertices are finished than by DoDijsktra.
+	 * </P>
+	 * 
+	 * <P>
+	 * Before the search begins, this method goes through the collection of
+	 * Observers, calling notifyAStarHasBegun on each one. Each time a vertex is
+	 * finished, it calls notifyAStarVertexFinished with the vertex and the cost of
+	 * the best path found to it. At the end it calls notifyAStarIsOver with the
+	 * lowest-cost path from start to end, or an empty list if "end" cannot be
+	 * reached.
+	 * </P>
+	 * 
+	 * <P>
+	 * The path is the lowest-cost path whenever the heuristic is admissible
+	 * (never overestimates the remaining cost). If the heuristic is admissible
+	 * but not consistent, a vertex may be finished again after a cheaper path to
+	 * it is found, and observers are notified each time.
+	 * </P>
+	 * 
+	 * @param start     vertex where the search begins
+	 * @param end       vertex where the search ends
+	 * @param heuristic estimate of the remaining cost from any vertex to "end"
+	 * @throws IllegalArgumentException if either vertex is not in the graph
+	 */
+	public void DoAStar(V start, V end, Heuristic<V> heuristic) {
+		GraphAlgorithms.aStar(searchGraph(), observerList, start, end, heuristic);
+	}
+
+	/**
+	 * <P>
+	 * Find the lowest-cost path from "start" to "end" by running Dijkstra's
+	 * algorithm forwards from "start" and backwards (over the edges entering each
+	 * vertex) from "end" at the same time, always growing the side whose next
+	 * vertex is cheaper. The search stops as soon as the two smallest unfinished
+	 * costs added together are no less than the cheapest path joining the two
+	 * sides, so on a single start/end query it usually finishes far fewer
+	 * vertices than DoDijsktra.
+	 * </P>
+	 * 
+	 * <P>
+	 * The observers are not notified. The path is returned in the same format
+	 * that DoDijsktra passes to notifyDijkstraIsOver: the first vertex in the list
+	 * is "start", the last is "end", and the list is empty if "end" cannot be
+	 * reached from "start".
+	 * </P>
+	 * 
+	 * @param start vertex where the path begins
+	 * @param end   vertex where the path ends
+	 * @return the lowest-cost path from start to end
+	 * @throws IllegalArgumentException if either vertex is not in the graph
+	 */
+	public List<V> DoBidirectionalDijkstra(V start, V end) {
+		return GraphAlgorithms.bidirectionalDijkstra(searchGraph(), start, end);
+	}
+
+	/**
+	 * Find a path from "start" to "end" with the fewest edges, by running a
+	 * Breadth-First-Search forwards from "start" and backwards from "end", one
+	 * whole level at a time, always growing the side with the smaller next level.
+	 * The observers are not notified. The path is returned in the same format as
+	 * DoBidirectionalDijkstra, and is empty if "end" cannot be reached.
+	 * 
+	 * @param start vertex where the path begins
+	 * @param end   vertex where the path ends
+	 * @return a path from start to end with the fewest edges
+	 * @throws IllegalArgumentException if either vertex is not in the graph
+	 */
+	public List<V> DoBidirectionalBFS(V start, V end) {
+		return GraphAlgorithms.bidirectionalBreadthFirstSearch(searchGraph(), start, end);
+	}
+
+	/**
+	 * <P>
+	 * Answer a batch of route queries, each the way DoDijsktraTo would, spread
+	 * over all the threads of the common ForkJoinPool. Each thread allocates its
+	 * search arrays once and reuses them for every query it answers, so a large
+	 * batch creates little more than the paths it returns. The graph must not
+	 * change while it runs.
+	 * </P>
+	 * 
+	 * <P>
+	 * The observers are not notified, so several batches (or a batch and another
+	 * algorithm) may run on the same graph at once.
+	 * </P>
+	 * 
+	 * @param queries start and end of every route wanted
+	 * @return the lowest-cost path and its cost for each query, in the same order
+	 *         as the queries; a query whose end is not in the graph or cannot be
+	 *         reached has an empty path
+	 * @throws IllegalArgumentException if the start of any query is not in the
+	 *                                  graph
+	 */
+	public List<ShortestPath<V>> solveAll(List<Query<V>> queries) {
+		return BatchSolver.solveAll(searchGraph(), queries);
+	}
+
+	/**
+	 * <P>
+	 * Breadth-First-Search from "start" to every vertex, using all the threads of
+	 * the common ForkJoinPool. The search works one level at a time: each level
+	 * is split among the threads, which either walk the edges leaving the current
+	 * level or, once the level holds a large share of the vertices not yet
+	 * reached, check every unreached vertex for an edge coming from it. This only
+	 * pays off on large graphs (a GraphSnapshot or MazeGridGraph is much faster
+	 * to read than a WeightedGraph); the graph must not change while it runs.
+	 * </P>
+	 * 
+	 * <P>
+	 * The observers are not notified. In the returned tree, distanceTo gives the
+	 * number of edges on a shortest path and pathTo gives one such path. When a
+	 * vertex has several possible parents, which one is chosen depends on the
+	 * timing of the threads.
+	 * </P>
+	 * 
+	 * @param start vertex where the search begins
+	 * @return the fewest edges from start to every vertex, with the paths
+	 * @throws IllegalArgumentException if the start vertex is not in the graph
+	 */
+	public ShortestPathTree<V> DoParallelBFS(V start) {
+		return ParallelBreadthFirstSearch.search(searchGraph(), start);
+	}
+
+	/**
+	 * Run DoDeltaStepping with delta equal to the largest edge weight (or 1), so
+	 * that every edge is light. On a maze-like graph with small weights this
+	 * keeps the number of buckets, and so the number of times the threads have to
+	 * wait for each other, small.
+	 * 
+	 * @param start vertex where every path begins
+	 * @return the lowest costs of, and paths to, every vertex reachable from
+	 *         start
+	 * @throws IllegalArgumentException if the start vertex is not in the graph
+	 */
+	public ShortestPathTree<V> DoDeltaStepping(V start) {
+		return DoDeltaStepping(start, Math.max(1, getMaxEdgeWeight()));
+	}
+
+	/**
+	 * <P>
+	 * Find the lowest cost of reaching every vertex from "start" with the
+	 * delta-stepping algorithm, relaxing edges in parallel on all the threads of
+	 * the common ForkJoinPool. The vertices are grouped into buckets of costs
+	 * "delta" wide; all the vertices in the lowest bucket are expanded at once,
+	 * instead of one at a time as in DoDijsktra. A small delta does little extra
+	 * work but leaves little to share among the threads; a large delta does the
+	 * opposite. The graph must not change while it runs.
+	 * </P>
+	 * 
+	 * <P>
+	 * The observers are not notified. The costs in the returned tree are the same
+	 * as DoDijsktra's; when several paths have the lowest cost, which one is
+	 * chosen depends on the timing of the threads.
+	 * </P>
+	 * 
+	 * @param start vertex where every path begins
+	 * @param delta width of the cost buckets, at least 1
+	 * @return the lowest costs of, and paths to, every vertex reachable from
+	 *         start
+	 * @throws IllegalArgumentException if the start vertex is not in the graph,
+	 *                                  or delta is less than 1
+	 */
+	public ShortestPathTree<V> DoDeltaStepping(V start, int delta) {
+		return DeltaStepping.search(searchGraph(), start, delta);
+	}
+}
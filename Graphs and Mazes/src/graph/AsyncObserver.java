@@ -0,0 +1,350 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <P>
+ * A GraphAlgorithmObserver that lets a search run ahead of a slow listener.
+ * Each notification is turned into a GraphEvent and put in a bounded ring
+ * buffer, and returns at once; a separate thread takes the events out in
+ * batches and hands them to a GraphEventListener (or replays them, one call at
+ * a time, on an ordinary GraphAlgorithmObserver). Register it with addObserver
+ * like any other observer.
+ * </P>
+ *
+ * <P>
+ * The BackpressurePolicy decides what happens when the buffer is full: the
+ * search can wait for the listener, or progress events can be dropped or
+ * coalesced so the search keeps going at full speed. Events are always
+ * delivered in the order they happened, and the events that begin and end a
+ * search are never lost.
+ * </P>
+ *
+ * <P>
+ * The listener is called on the delivery thread only, never on the thread
+ * running the search. An exception thrown by the listener is passed to that
+ * thread's uncaught exception handler and delivery carries on with the next
+ * batch. Call close() when the observer is no longer needed, or shutdownNow()
+ * to give up on the events still waiting without waiting for the listener.
+ * </P>
+ *
+ * @param <V> type of the vertices
+ */
+public final class AsyncObserver<V> implements GraphAlgorithmObserver<V> {
+
+	private final GraphEventListener<V> listener;
+	private final GraphAlgorithmObserver<V> observer; // null unless replaying
+	private final BackpressurePolicy policy;
+	private final int maxBatch;
+
+	/*
+	 * the buffer holds "size" events starting at ring[head], wrapping around;
+	 * every field below is guarded by lock
+	 */
+	private final GraphEvent<V>[] ring;
+	private int head;
+	private int size;
+	private boolean delivering;
+	private boolean closed;
+	private long dropped;
+
+	// set by shutdownNow; also read, without the lock, while replaying a batch
+	private volatile boolean abandoned;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+	private final Condition idle = lock.newCondition();
+
+	private final Thread consumer;
+
+	/**
+	 * Creates an observer that delivers batches of at most maxBatch events to
+	 * the listener.
+	 *
+	 * @param listener receives the events on the delivery thread
+	 * @param capacity how many events the buffer can hold
+	 * @param maxBatch largest number of events passed in one call
+	 * @param policy   what to do when the buffer is full
+	 */
+	public AsyncObserver(GraphEventListener<V> listener, int capacity, int maxBatch, BackpressurePolicy policy) {
+		this(listener, null, capacity, maxBatch, policy);
+	}
+
+	/**
+	 * Creates an observer that replays the events, one call at a time, on
+	 * another observer.
+	 *
+	 * @param observer notified on the delivery thread
+	 * @param capacity how many events the buffer can hold
+	 * @param policy   what to do when the buffer is full
+	 */
+	public AsyncObserver(GraphAlgorithmObserver<V> observer, int capacity, BackpressurePolicy policy) {
+		this(null, observer, capacity, capacity, policy);
+	}
+
+	@SuppressWarnings("unchecked")
+	private AsyncObserver(GraphEventListener<V> listener, GraphAlgorithmObserver<V> observer, int capacity,
+			int maxBatch, BackpressurePolicy policy) {
+		// exactly one of listener and observer is given
+		if ((listener == null) == (observer == null) || policy == null || capacity < 1 || maxBatch < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.listener = listener;
+		this.observer = observer;
+		this.policy = policy;
+		this.maxBatch = maxBatch;
+		ring = (GraphEvent<V>[]) new GraphEvent<?>[capacity];
+		consumer = new Thread(new Runnable() {
+			public void run() {
+				deliverUntilClosed();
+			}
+		}, "graph-events");
+		consumer.setDaemon(true);
+		consumer.start();
+	}
+
+	public void notifyDFSHasBegun() {
+		publish(new GraphEvent<V>(GraphEvent.Type.DFS_BEGUN, null, null, null));
+	}
+
+	public void notifyBFSHasBegun() {
+		publish(new GraphEvent<V>(GraphEvent.Type.BFS_BEGUN, null, null, null));
+	}
+
+	public void notifyVisit(V vertex) {
+		publish(new GraphEvent<V>(GraphEvent.Type.VISIT, vertex, null, null));
+	}
+
+	public void notifySearchIsOver() {
+		publish(new GraphEvent<V>(GraphEvent.Type.SEARCH_OVER, null, null, null));
+	}
+
+	public void notifyDijkstraHasBegun() {
+		publish(new GraphEvent<V>(GraphEvent.Type.DIJKSTRA_BEGUN, null, null, null));
+	}
+
+	public void notifyDijkstraVertexFinished(V vertex, Integer cost) {
+		publish(new GraphEvent<V>(GraphEvent.Type.DIJKSTRA_VERTEX_FINISHED, vertex, cost, null));
+	}
+
+	public void notifyDijkstraIsOver(List<V> path) {
+		publish(new GraphEvent<V>(GraphEvent.Type.DIJKSTRA_OVER, null, null, path));
+	}
+
+	public void notifyAStarHasBegun() {
+		publish(new GraphEvent<V>(GraphEvent.Type.A_STAR_BEGUN, null, null, null));
+	}
+
+	public void notifyAStarVertexFinished(V vertex, Integer cost) {
+		publish(new GraphEvent<V>(GraphEvent.Type.A_STAR_VERTEX_FINISHED, vertex, cost, null));
+	}
+
+	public void notifyAStarIsOver(List<V> path) {
+		publish(new GraphEvent<V>(GraphEvent.Type.A_STAR_OVER, null, null, path));
+	}
+
+	/**
+	 * @return how many progress events have been thrown away (DROP_OLDEST) or
+	 *         replaced by a later one (COALESCE) so far
+	 */
+	public long getDroppedCount() {
+		lock.lock();
+		try {
+			return dropped;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Waits until every event published so far has been delivered. Must not be
+	 * called from the listener.
+	 *
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void flush() throws InterruptedException {
+		lock.lock();
+		try {
+			while (size > 0 || delivering) {
+				idle.await();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Delivers the events still in the buffer and stops the delivery thread.
+	 * Notifying the observer after it has been closed throws
+	 * IllegalStateException. Must not be called from the listener.
+	 *
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void close() throws InterruptedException {
+		lock.lock();
+		try {
+			closed = true;
+			notEmpty.signalAll();
+			notFull.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		consumer.join();
+	}
+
+	/**
+	 * Stops the observer without waiting for the listener: the events still in
+	 * the buffer are thrown away and the delivery thread is interrupted, so a
+	 * listener sleeping between events wakes up. A batch already handed to a
+	 * GraphEventListener is finished; one being replayed on an observer stops
+	 * after the current event. Later notifications are ignored, so a search
+	 * that is still running can carry on to its end. May be called from any
+	 * thread, including the listener.
+	 */
+	public void shutdownNow() {
+		lock.lock();
+		try {
+			abandoned = true;
+			closed = true;
+			while (size > 0) {
+				ring[head] = null;
+				head = (head + 1) % ring.length;
+				size--;
+			}
+			notEmpty.signalAll();
+			notFull.signalAll();
+			idle.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		consumer.interrupt();
+	}
+
+	private void publish(GraphEvent<V> event) {
+		lock.lock();
+		try {
+			while (size == ring.length && !closed) {
+				if (event.isProgress() && makeRoom(event)) {
+					if (size < ring.length) {
+						break;
+					}
+					// the event was merged into one already in the buffer
+					return;
+				}
+				notFull.awaitUninterruptibly();
+			}
+			if (abandoned) {
+				return;
+			}
+			if (closed) {
+				throw new IllegalStateException();
+			}
+			ring[(head + size) % ring.length] = event;
+			size++;
+			notEmpty.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/*
+	 * Applies the policy to a progress event arriving at a full buffer. Returns
+	 * false if the publisher has to wait; otherwise either a slot has been freed
+	 * or the event has been merged into the buffer.
+	 */
+	private boolean makeRoom(GraphEvent<V> event) {
+		if (policy == BackpressurePolicy.DROP_OLDEST) {
+			for (int i = 0; i < size; i++) {
+				if (ring[(head + i) % ring.length].isProgress()) {
+					removeAt(i);
+					dropped++;
+					return true;
+				}
+			}
+		} else if (policy == BackpressurePolicy.COALESCE) {
+			for (int i = size - 1; i >= 0; i--) {
+				int slot = (head + i) % ring.length;
+				GraphEvent<V> queued = ring[slot];
+				if (!queued.isProgress()) {
+					// never merge across the start or end of a search
+					break;
+				}
+				if (queued.getType() == event.getType()) {
+					ring[slot] = event;
+					dropped++;
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	// removes the i-th oldest event, closing the gap from the front
+	private void removeAt(int i) {
+		for (int j = i; j > 0; j--) {
+			ring[(head + j) % ring.length] = ring[(head + j - 1) % ring.length];
+		}
+		ring[head] = null;
+		head = (head + 1) % ring.length;
+		size--;
+	}
+
+	private void deliverUntilClosed() {
+		List<GraphEvent<V>> batch = new ArrayList<GraphEvent<V>>(Math.min(maxBatch, ring.length));
+		while (true) {
+			lock.lock();
+			try {
+				while (size == 0 && !closed) {
+					notEmpty.awaitUninterruptibly();
+				}
+				if (size == 0) {
+					idle.signalAll();
+					return;
+				}
+				while (size > 0 && batch.size() < maxBatch) {
+					batch.add(ring[head]);
+					ring[head] = null;
+					head = (head + 1) % ring.length;
+					size--;
+				}
+				delivering = true;
+				notFull.signalAll();
+			} finally {
+				lock.unlock();
+			}
+			try {
+				if (observer == null) {
+					listener.notifyEvents(batch);
+				} else {
+					replay(batch);
+				}
+			} catch (RuntimeException e) {
+				Thread current = Thread.currentThread();
+				current.getUncaughtExceptionHandler().uncaughtException(current, e);
+			}
+			batch.clear();
+			lock.lock();
+			try {
+				delivering = false;
+				if (size == 0) {
+					idle.signalAll();
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	private void replay(List<GraphEvent<V>> batch) {
+		for (GraphEvent<V> event : batch) {
+			if (abandoned) {
+				return;
+			}
+			event.deliverTo(observer);
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package graph;
+
+/**
+ * <P>
+ * What an AsyncObserver does when a search produces events faster than its
+ * listener takes them and the buffer is full. Only progress events (a vertex
+ * visited or finished) are ever dropped or coalesced; an event that begins or
+ * ends a search always waits for room.
+ * </P>
+ */
+public enum BackpressurePolicy {
+
+	/**
+	 * The search waits until the listener has made room. Every event is
+	 * delivered, and the search runs no faster than the listener once the
+	 * buffer is full.
+	 */
+	BLOCK,
+
+	/**
+	 * The oldest progress event in the buffer is thrown away to make room. The
+	 * search never waits for progress events; the listener sees the most recent
+	 * ones.
+	 */
+	DROP_OLDEST,
+
+	/**
+	 * The new progress event replaces the newest progress event of the same
+	 * type still in the buffer, so the listener skips straight to the latest
+	 * vertex. If there is none, the search waits as with BLOCK.
+	 */
+	COALESCE
+}
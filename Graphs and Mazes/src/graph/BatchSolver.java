@@ -0,0 +1,66 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <P>
+ * Answers a batch of route queries in parallel on the common ForkJoinPool.
+ * See AbstractIndexedGraph.solveAll.
+ * </P>
+ *
+ * <P>
+ * One task is started per thread. Each task has its own SearchWorkspace and
+ * keeps taking the next unanswered query from a shared counter until none are
+ * left, so a thread that gets short queries simply answers more of them.
+ * </P>
+ */
+final class BatchSolver {
+
+	private BatchSolver() {
+	}
+
+	/**
+	 * Finds the lowest-cost path for every query, with Dijkstra's algorithm
+	 * stopping once the query's end is finished.
+	 *
+	 * @throws IllegalArgumentException if the start of any query is not in the
+	 *                                  graph
+	 */
+	static <V> List<ShortestPath<V>> solveAll(final IndexedGraph<V> graph, final List<Query<V>> queries) {
+		// check every start before any work is done
+		for (Query<V> query : queries) {
+			if (graph.getIndex(query.getStart()) == -1) {
+				throw new IllegalArgumentException();
+			}
+		}
+
+		final ShortestPath<V>[] results = newArray(queries.size());
+		final AtomicInteger nextQuery = new AtomicInteger();
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		int workers = Math.max(1, Math.min(ParallelTasks.parallelism(), queries.size()));
+		for (int w = 0; w < workers; w++) {
+			tasks.add(new Callable<Void>() {
+				public Void call() {
+					SearchWorkspace workspace = new SearchWorkspace();
+					for (int i = nextQuery.getAndIncrement(); i < queries.size(); i = nextQuery.getAndIncrement()) {
+						Query<V> query = queries.get(i);
+						results[i] = GraphAlgorithms.dijkstraTo(graph, query.getStart(), query.getEnd(), workspace);
+					}
+					return null;
+				}
+			});
+		}
+		ParallelTasks.invokeAll(tasks);
+		return Collections.unmodifiableList(Arrays.asList(results));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <V> ShortestPath<V>[] newArray(int length) {
+		return (ShortestPath<V>[]) new ShortestPath<?>[length];
+	}
+}
@@ -0,0 +1,160 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * <P>
+ * A "Dial" bucket queue of vertex indices. It only works for Dijkstra-style
+ * use, where the first key is 0, the smallest key never goes down, and every
+ * key that is added is at most maxEdgeWeight larger than the last key
+ * removed. Under those rules the keys waiting in the queue always fit in a
+ * window of maxEdgeWeight + 1 consecutive values, so one bucket per value is
+ * enough and the buckets can be reused in a circle.
+ * </P>
+ *
+ * <P>
+ * Adding an index and lowering its key take O(1) time. Removing the smallest
+ * index only has to walk over empty buckets, so a full run of Dijkstra's
+ * algorithm takes O(E + V + largest cost) time instead of O((V + E) log V).
+ * This pays off when the edge weights are small integers, as they are in every
+ * Maze.
+ * </P>
+ *
+ * <P>
+ * Each bucket is a doubly linked list threaded through the next and previous
+ * arrays, so no objects are created while the queue is in use. Indices with
+ * equal keys come out in the order they entered their bucket.
+ * </P>
+ */
+class BucketQueue implements IndexedPriorityQueue {
+
+	private static final int NONE = -1;
+
+	private int[] head; // first index in each bucket
+	private int[] tail; // last index in each bucket
+	private int[] next; // next index in the same bucket
+	private int[] previous; // previous index in the same bucket
+	private int[] keys; // keys[index] is the current key of index
+	private boolean[] present;
+	private int size;
+	private int smallest; // no key in the queue is smaller than this
+
+	/**
+	 * Creates an empty queue for the indices 0 through capacity - 1, where no
+	 * edge weight is larger than maxEdgeWeight.
+	 *
+	 * @param capacity      number of distinct indices the queue can hold
+	 * @param maxEdgeWeight largest edge weight in the graph being searched
+	 * @throws IllegalArgumentException if maxEdgeWeight is negative or larger
+	 *                                  than ShortestPathEngine.BUCKET_WEIGHT_LIMIT
+	 */
+	public BucketQueue(int capacity, int maxEdgeWeight) {
+		if (maxEdgeWeight < 0 || maxEdgeWeight > ShortestPathEngine.BUCKET_WEIGHT_LIMIT) {
+			throw new IllegalArgumentException();
+		}
+		head = new int[maxEdgeWeight + 1];
+		tail = new int[maxEdgeWeight + 1];
+		next = new int[capacity];
+		previous = new int[capacity];
+		keys = new int[capacity];
+		present = new boolean[capacity];
+		Arrays.fill(head, NONE);
+		Arrays.fill(tail, NONE);
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean contains(int index) {
+		return present[index];
+	}
+
+	/**
+	 * Adds an index to the queue with the given key. Throws an
+	 * IllegalArgumentException if the index is already in the queue, or if the key
+	 * does not fit in the window of keys the queue can currently hold.
+	 *
+	 * @param index index to be added
+	 * @param key   key of the index
+	 * @throws IllegalArgumentException if the index is already in the queue or
+	 *                                  the key is out of range
+	 */
+	public void add(int index, int key) {
+		if (present[index] || key < smallest || key - smallest >= head.length) {
+			throw new IllegalArgumentException();
+		}
+		keys[index] = key;
+		present[index] = true;
+		link(index);
+		size++;
+	}
+
+	public void decreaseKey(int index, int key) {
+		if (!present[index] || key > keys[index] || key < smallest) {
+			throw new IllegalArgumentException();
+		}
+		unlink(index);
+		keys[index] = key;
+		link(index);
+	}
+
+	public int poll() {
+		if (size == 0) {
+			throw new IllegalStateException();
+		}
+		// walk around the circle until a non-empty bucket is found
+		while (head[smallest % head.length] == NONE) {
+			smallest++;
+		}
+		int index = head[smallest % head.length];
+		unlink(index);
+		present[index] = false;
+		size--;
+		return index;
+	}
+
+	/*
+	 * Only the indices still in the buckets are unmarked, so clearing a queue
+	 * that a search left almost empty is cheap.
+	 */
+	public void clear() {
+		for (int bucket = 0; bucket < head.length; bucket++) {
+			for (int index = head[bucket]; index != NONE; index = next[index]) {
+				present[index] = false;
+			}
+		}
+		Arrays.fill(head, NONE);
+		Arrays.fill(tail, NONE);
+		size = 0;
+		smallest = 0;
+	}
+
+	// appends the index to the end of the bucket for its key
+	private void link(int index) {
+		int bucket = keys[index] % head.length;
+		next[index] = NONE;
+		previous[index] = tail[bucket];
+		if (tail[bucket] == NONE) {
+			head[bucket] = index;
+		} else {
+			next[tail[bucket]] = index;
+		}
+		tail[bucket] = index;
+	}
+
+	// takes the index out of the bucket for its key
+	private void unlink(int index) {
+		int bucket = keys[index] % head.length;
+		if (previous[index] == NONE) {
+			head[bucket] = next[index];
+		} else {
+			next[previous[index]] = next[index];
+		}
+		if (next[index] == NONE) {
+			tail[bucket] = previous[index];
+		} else {
+			previous[next[index]] = previous[index];
+		}
+	}
+}
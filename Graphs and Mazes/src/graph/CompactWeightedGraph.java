@@ -0,0 +1,199 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <P>
+ * A mutable directed, weighted graph with the same operations as WeightedGraph,
+ * but whose edges are kept in primitive int arrays. Each vertex owns an
+ * open-addressing IntIntHashMap from the index of a neighbor to the weight of
+ * the edge, so weights are never boxed.
+ * </P>
+ *
+ * <P>
+ * The index-based methods (addEdgeByIndex, getWeightByIndex and getEdges)
+ * create no objects, and take O(1) expected time, apart from the occasional
+ * growth of a vertex's table. This makes the class a good fit for graphs that
+ * keep changing while they are being searched. The vertex-based methods cost
+ * one extra hash lookup per vertex to translate it to its index.
+ * </P>
+ *
+ * @param <V> type of the vertices
+ */
+public class CompactWeightedGraph<V> extends AbstractIndexedGraph<V> {
+
+	/*
+	 * vertexList.get(i) is the vertex with index i, vertexIndex maps each vertex
+	 * back to its index, and adjacency.get(i) holds the edges leaving vertex i.
+	 * reverseAdjacency.get(i) holds the same edges entering vertex i, keyed by
+	 * the vertex they come from.
+	 */
+	private Map<V, Integer> vertexIndex;
+	private List<V> vertexList;
+	private List<IntIntHashMap> adjacency;
+	private List<IntIntHashMap> reverseAdjacency;
+
+	/*
+	 * Largest weight ever given to an edge (see WeightedGraph.getMaxEdgeWeight).
+	 */
+	private int maxEdgeWeight;
+
+	/**
+	 * Initialize the data structures to "empty". (The collection of
+	 * GraphAlgorithmObservers is set up by AbstractIndexedGraph.)
+	 */
+	public CompactWeightedGraph() {
+		vertexIndex = new HashMap<V, Integer>();
+		vertexList = new ArrayList<V>();
+		adjacency = new ArrayList<IntIntHashMap>();
+		reverseAdjacency = new ArrayList<IntIntHashMap>();
+	}
+
+	/**
+	 * Add a vertex to the graph. If the vertex is already in the graph, throw an
+	 * IllegalArgumentException.
+	 *
+	 * @param vertex vertex to be added to the graph
+	 * @return the index given to the new vertex
+	 * @throws IllegalArgumentException if the vertex is already in the graph
+	 */
+	public int addVertex(V vertex) {
+		if (vertexIndex.containsKey(vertex)) {
+			throw new IllegalArgumentException();
+		}
+		int index = vertexList.size();
+		vertexIndex.put(vertex, index);
+		vertexList.add(vertex);
+		adjacency.add(new IntIntHashMap());
+		reverseAdjacency.add(new IntIntHashMap());
+		return index;
+	}
+
+	/**
+	 * Searches for a given vertex.
+	 *
+	 * @param vertex the vertex we are looking for
+	 * @return true if the vertex is in the graph, false otherwise.
+	 */
+	public boolean containsVertex(V vertex) {
+		return vertexIndex.containsKey(vertex);
+	}
+
+	/**
+	 * Add an edge from one vertex of the graph to another, with the weight
+	 * specified, replacing any edge already between them.
+	 *
+	 * @param from   the vertex the edge leads from
+	 * @param to     the vertex the edge leads to
+	 * @param weight the (non-negative) weight of this edge
+	 * @throws IllegalArgumentException when either vertex is not in the graph, or
+	 *                                  the weight is negative.
+	 */
+	public void addEdge(V from, V to, int weight) {
+		addEdgeByIndex(getIndex(from), getIndex(to), weight);
+	}
+
+	/**
+	 * Add an edge between the vertices with the given indices, replacing any
+	 * edge already between them. Creates no objects unless one of the two
+	 * vertices' tables has to grow.
+	 *
+	 * @param from   index of the vertex the edge leads from
+	 * @param to     index of the vertex the edge leads to
+	 * @param weight the (non-negative) weight of this edge
+	 * @throws IllegalArgumentException when either index is not in the graph, or
+	 *                                  the weight is negative.
+	 */
+	public void addEdgeByIndex(int from, int to, int weight) {
+		if (!isIndex(from) || !isIndex(to) || weight < 0) {
+			throw new IllegalArgumentException();
+		}
+		adjacency.get(from).put(to, weight);
+		reverseAdjacency.get(to).put(from, weight);
+		maxEdgeWeight = Math.max(maxEdgeWeight, weight);
+	}
+
+	/**
+	 * Returns weight of the edge connecting one vertex to another. Returns null if
+	 * the edge does not exist.
+	 *
+	 * @param from vertex where edge begins
+	 * @param to   vertex where edge terminates
+	 * @return weight of the edge, or null if there is no edge connecting these
+	 *         vertices
+	 * @throws IllegalArgumentException if either of the vertices specified are not
+	 *                                  in the graph.
+	 */
+	public Integer getWeight(V from, V to) {
+		int weight = getWeightByIndex(getIndex(from), getIndex(to));
+		return weight == -1 ? null : weight;
+	}
+
+	/**
+	 * Returns weight of the edge connecting the vertices with the given indices,
+	 * or -1 if the edge does not exist. Creates no objects.
+	 *
+	 * @param from index of the vertex where edge begins
+	 * @param to   index of the vertex where edge terminates
+	 * @return weight of the edge, or -1 if there is no edge connecting these
+	 *         vertices
+	 * @throws IllegalArgumentException if either index is not in the graph
+	 */
+	public int getWeightByIndex(int from, int to) {
+		if (!isIndex(from) || !isIndex(to)) {
+			throw new IllegalArgumentException();
+		}
+		return adjacency.get(from).get(to, -1);
+	}
+
+	/**
+	 * Compiles the current contents of this graph into an immutable
+	 * GraphSnapshot (see WeightedGraph.freeze).
+	 *
+	 * @return a frozen copy of this graph
+	 */
+	public GraphSnapshot<V> freeze() {
+		return GraphSnapshot.copyOf(this);
+	}
+
+	public int getVertexCount() {
+		return vertexList.size();
+	}
+
+	public V getVertex(int index) {
+		return vertexList.get(index);
+	}
+
+	public int getIndex(V vertex) {
+		Integer index = vertexIndex.get(vertex);
+		return index == null ? -1 : index;
+	}
+
+	public void getEdges(int from, EdgeBuffer edges) {
+		copyEdges(adjacency.get(from), edges);
+	}
+
+	public void getReverseEdges(int to, EdgeBuffer edges) {
+		copyEdges(reverseAdjacency.get(to), edges);
+	}
+
+	public int getMaxEdgeWeight() {
+		return maxEdgeWeight;
+	}
+
+	private static void copyEdges(IntIntHashMap neighbors, EdgeBuffer edges) {
+		edges.clear();
+		for (int slot = 0; slot < neighbors.capacity(); slot++) {
+			if (neighbors.keyAt(slot) != IntIntHashMap.EMPTY) {
+				edges.add(neighbors.keyAt(slot), neighbors.valueAt(slot));
+			}
+		}
+	}
+
+	private boolean isIndex(int index) {
+		return index >= 0 && index < vertexList.size();
+	}
+}
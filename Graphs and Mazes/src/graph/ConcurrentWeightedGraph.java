@@ -0,0 +1,282 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <P>
+ * A directed, weighted graph with the same operations as WeightedGraph that
+ * any number of threads may read, search and change at the same time. Readers
+ * never lock: each vertex keeps its outgoing and incoming edges in
+ * ConcurrentHashMaps keyed by the index of the neighbor, so walking a vertex's
+ * edges, looking up a weight and running any of the algorithms proceed in
+ * parallel with each other and with writers. Adding an edge locks only the
+ * vertex it leaves from, so writers working on different vertices do not wait
+ * for each other. Adding a vertex takes a short lock of its own, which keeps
+ * the vertex indices dense.
+ * </P>
+ *
+ * <P>
+ * The observers and stats listeners are kept in copy-on-write sets, so they
+ * can be added and removed while algorithms are running. An algorithm sees
+ * the vertices that were in the graph when it started, and every edge between
+ * them that was there when it started; an edge added or changed during the
+ * search may or may not be seen. For a search that must see exactly one
+ * version of the graph, use a frozen copy (freeze()).
+ * </P>
+ *
+ * @param <V> type of the vertices
+ */
+public class ConcurrentWeightedGraph<V> extends AbstractIndexedGraph<V> {
+
+	/*
+	 * vertexMap finds a vertex's node by the vertex; byIndex[i] is the node of
+	 * the vertex with index i. A new node is written to byIndex before
+	 * vertexCount is raised, and put in vertexMap after, so a reader that sees
+	 * a vertex by either route also sees everything up to its index.
+	 */
+	private final ConcurrentHashMap<V, Node<V>> vertexMap;
+	private volatile Node<V>[] byIndex;
+	private volatile int vertexCount;
+	private final Object vertexLock = new Object();
+
+	/*
+	 * Largest and smallest weight ever given to an edge (see
+	 * WeightedGraph.getMaxEdgeWeight and getMinEdgeWeight).
+	 */
+	private final AtomicInteger maxEdgeWeight = new AtomicInteger();
+	private final AtomicInteger minEdgeWeight = new AtomicInteger(Integer.MAX_VALUE);
+
+	/**
+	 * Initialize the data structures to "empty".
+	 */
+	@SuppressWarnings("unchecked")
+	public ConcurrentWeightedGraph() {
+		super(new CopyOnWriteArraySet<GraphAlgorithmObserver<V>>(), new CopyOnWriteArraySet<SearchStatsListener>());
+		vertexMap = new ConcurrentHashMap<V, Node<V>>();
+		byIndex = (Node<V>[]) new Node<?>[16];
+	}
+
+	/**
+	 * Add a vertex to the graph. If the vertex is already in the graph, throw an
+	 * IllegalArgumentException.
+	 *
+	 * @param vertex vertex to be added to the graph
+	 * @throws IllegalArgumentException if the vertex is already in the graph
+	 */
+	public void addVertex(V vertex) {
+		synchronized (vertexLock) {
+			if (vertexMap.containsKey(vertex)) {
+				throw new IllegalArgumentException();
+			}
+			int index = vertexCount;
+			Node<V>[] nodes = byIndex;
+			if (index == nodes.length) {
+				nodes = Arrays.copyOf(nodes, 2 * index);
+				byIndex = nodes;
+			}
+			Node<V> node = new Node<V>(vertex, index);
+			nodes[index] = node;
+			vertexCount = index + 1;
+			vertexMap.put(vertex, node);
+		}
+	}
+
+	/**
+	 * Searches for a given vertex.
+	 *
+	 * @param vertex the vertex we are looking for
+	 * @return true if the vertex is in the graph, false otherwise.
+	 */
+	public boolean containsVertex(V vertex) {
+		return vertexMap.containsKey(vertex);
+	}
+
+	/**
+	 * Add an edge from one vertex of the graph to another, with the weight
+	 * specified, replacing any edge between them. See WeightedGraph.addEdge.
+	 *
+	 * @param from   the vertex the edge leads from
+	 * @param to     the vertex the edge leads to
+	 * @param weight the (non-negative) weight of this edge
+	 * @throws IllegalArgumentException when either vertex is not in the graph, or
+	 *                                  the weight is negative.
+	 */
+	public void addEdge(V from, V to, Integer weight) {
+		Node<V> source = vertexMap.get(from);
+		Node<V> target = vertexMap.get(to);
+		if (source == null || target == null || weight < 0) {
+			throw new IllegalArgumentException();
+		}
+		// raise the bounds first, so a reader never sees an edge outside them
+		raise(maxEdgeWeight, weight);
+		lower(minEdgeWeight, weight);
+		// both directions change together, as seen by other writers
+		synchronized (source) {
+			source.out.put(target.key, weight);
+			target.in.put(source.key, weight);
+		}
+	}
+
+	/**
+	 * Returns weight of the edge connecting one vertex to another. Returns null if
+	 * the edge does not exist.
+	 *
+	 * @param from vertex where edge begins
+	 * @param to   vertex where edge terminates
+	 * @return weight of the edge, or null if there is no edge connecting these
+	 *         vertices
+	 * @throws IllegalArgumentException if either of the vertices specified are not
+	 *                                  in the graph.
+	 */
+	public Integer getWeight(V from, V to) {
+		Node<V> source = vertexMap.get(from);
+		Node<V> target = vertexMap.get(to);
+		if (source == null || target == null) {
+			throw new IllegalArgumentException();
+		}
+		return source.out.get(target.key);
+	}
+
+	/**
+	 * Returns the largest weight that has been given to any edge of this graph,
+	 * or 0 if there are no edges.
+	 *
+	 * @return an upper bound on the weight of every edge in the graph
+	 */
+	public int getMaxEdgeWeight() {
+		return maxEdgeWeight.get();
+	}
+
+	/**
+	 * Returns the smallest weight that has been given to any edge of this graph,
+	 * or 0 if there are no edges.
+	 *
+	 * @return a lower bound on the weight of every edge in the graph
+	 */
+	public int getMinEdgeWeight() {
+		int min = minEdgeWeight.get();
+		return min == Integer.MAX_VALUE ? 0 : min;
+	}
+
+	/**
+	 * Copies the graph as it is at this moment into an immutable GraphSnapshot.
+	 * An edge added while the copy is being made may or may not be included.
+	 *
+	 * @return a frozen copy of this graph
+	 */
+	public GraphSnapshot<V> freeze() {
+		return GraphSnapshot.copyOf(searchGraph());
+	}
+
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	public V getVertex(int index) {
+		if (index >= vertexCount) {
+			throw new IndexOutOfBoundsException();
+		}
+		return byIndex[index].vertex;
+	}
+
+	public int getIndex(V vertex) {
+		Node<V> node = vertexMap.get(vertex);
+		return node == null ? -1 : node.index;
+	}
+
+	public void getEdges(int from, EdgeBuffer edges) {
+		copy(byIndex[from].out, edges, Integer.MAX_VALUE, Integer.MAX_VALUE);
+	}
+
+	public void getReverseEdges(int to, EdgeBuffer edges) {
+		copy(byIndex[to].in, edges, Integer.MAX_VALUE, Integer.MAX_VALUE);
+	}
+
+	/*
+	 * The algorithms run on a view that is fixed to the vertices and weight
+	 * bound of the moment they start. Vertices added later are invisible to
+	 * them (their arrays are sized for the old vertex count), and so are edges
+	 * heavier than the old bound (a bucket queue is sized by it).
+	 */
+	IndexedGraph<V> searchGraph() {
+		final int maxWeight = maxEdgeWeight.get();
+		final int count = vertexCount;
+		final Node<V>[] nodes = byIndex;
+		return new IndexedGraph<V>() {
+			public int getVertexCount() {
+				return count;
+			}
+
+			public V getVertex(int index) {
+				if (index >= count) {
+					throw new IndexOutOfBoundsException();
+				}
+				return nodes[index].vertex;
+			}
+
+			public int getIndex(V vertex) {
+				Node<V> node = vertexMap.get(vertex);
+				return node == null || node.index >= count ? -1 : node.index;
+			}
+
+			public void getEdges(int from, EdgeBuffer edges) {
+				copy(nodes[from].out, edges, count, maxWeight);
+			}
+
+			public void getReverseEdges(int to, EdgeBuffer edges) {
+				copy(nodes[to].in, edges, count, maxWeight);
+			}
+
+			public int getMaxEdgeWeight() {
+				return maxWeight;
+			}
+		};
+	}
+
+	private static void copy(Map<Integer, Integer> neighbors, EdgeBuffer edges, int count, int maxWeight) {
+		edges.clear();
+		for (Map.Entry<Integer, Integer> edge : neighbors.entrySet()) {
+			int target = edge.getKey();
+			int weight = edge.getValue();
+			if (target < count && weight <= maxWeight) {
+				edges.add(target, weight);
+			}
+		}
+	}
+
+	private static void raise(AtomicInteger bound, int weight) {
+		int current = bound.get();
+		while (weight > current && !bound.compareAndSet(current, weight)) {
+			current = bound.get();
+		}
+	}
+
+	private static void lower(AtomicInteger bound, int weight) {
+		int current = bound.get();
+		while (weight < current && !bound.compareAndSet(current, weight)) {
+			current = bound.get();
+		}
+	}
+
+	/*
+	 * A vertex, its index (also boxed once, as the key other vertices' maps use
+	 * for it) and its edges, keyed by the index of the other end.
+	 */
+	private static final class Node<V> {
+		private final V vertex;
+		private final int index;
+		private final Integer key;
+		private final ConcurrentHashMap<Integer, Integer> out = new ConcurrentHashMap<Integer, Integer>(4);
+		private final ConcurrentHashMap<Integer, Integer> in = new ConcurrentHashMap<Integer, Integer>(4);
+
+		private Node(V vertex, int index) {
+			this.vertex = vertex;
+			this.index = index;
+			key = index;
+		}
+	}
+}
@@ -0,0 +1,315 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <P>
+ * A Contraction Hierarchy: a graph preprocessed so that lowest-cost paths
+ * between any two vertices can be found by searching only a tiny part of it.
+ * Building one (with build, or WeightedGraph.contract) ranks every vertex and
+ * adds "shortcut" edges that skip over lower-ranked vertices, without changing
+ * the cost of any path. A query then runs Dijkstra's algorithm forwards from
+ * the start and backwards from the end, each only along edges that lead to a
+ * higher-ranked vertex, and joins the two where they meet. On a large maze this
+ * finishes a few hundred vertices instead of most of the graph.
+ * </P>
+ *
+ * <P>
+ * The hierarchy is a copy, like a GraphSnapshot: changes made to the graph
+ * after it was built do not affect it. Queries can be made from any number of
+ * threads at once. Each thread keeps its own search arrays, so after the
+ * first query on a thread, a query allocates nothing but its result.
+ * </P>
+ *
+ * @param <V> type of the vertices
+ */
+public final class ContractionHierarchy<V> {
+
+	private final GraphSnapshot<V> vertices;
+
+	/*
+	 * The edges (original and shortcut) in compressed sparse rows. "up" holds,
+	 * for each vertex, its edges to higher-ranked vertices. "down" holds, for
+	 * each vertex, the edges into it from higher-ranked vertices (by source).
+	 * The middles arrays hold the vertex a shortcut skips, or -1 for an original
+	 * edge.
+	 */
+	private final int[] upOffsets;
+	private final int[] upTargets;
+	private final int[] upWeights;
+	private final int[] upMiddles;
+	private final int[] downOffsets;
+	private final int[] downSources;
+	private final int[] downWeights;
+	private final int[] downMiddles;
+	private final int[] rank;
+
+	private final int shortcutCount;
+	private final long preprocessingMillis;
+
+	private final ThreadLocal<Workspace> workspaces = new ThreadLocal<Workspace>() {
+		protected Workspace initialValue() {
+			return new Workspace(rank.length);
+		}
+	};
+
+	/**
+	 * Contracts a copy of any IndexedGraph. This can take a while on a large
+	 * graph; getPreprocessingMillis reports how long it took.
+	 *
+	 * @param graph graph to be preprocessed
+	 * @return a hierarchy answering shortest-path queries on the graph
+	 */
+	public static <V> ContractionHierarchy<V> build(IndexedGraph<V> graph) {
+		long begin = System.nanoTime();
+		GraphSnapshot<V> snapshot = GraphSnapshot.copyOf(graph);
+		Contractor contractor = new Contractor(snapshot);
+		int[] rank = contractor.contractAll();
+		return new ContractionHierarchy<V>(snapshot, contractor, rank, (System.nanoTime() - begin) / 1000000);
+	}
+
+	/*
+	 * Splits the contracted graph into upward and downward edges.
+	 */
+	private ContractionHierarchy(GraphSnapshot<V> vertices, Contractor contractor, int[] rank,
+			long preprocessingMillis) {
+		int vertexCount = rank.length;
+		this.vertices = vertices;
+		this.rank = rank;
+		this.shortcutCount = contractor.getShortcutCount();
+		this.preprocessingMillis = preprocessingMillis;
+
+		// first pass counts the edges of each row, second pass copies them
+		upOffsets = new int[vertexCount + 1];
+		downOffsets = new int[vertexCount + 1];
+		for (int i = 0; i < vertexCount; i++) {
+			upOffsets[i + 1] = upOffsets[i] + contractor.getUpEdges(i).size();
+			downOffsets[i + 1] = downOffsets[i] + contractor.getDownEdges(i).size();
+		}
+		upTargets = new int[upOffsets[vertexCount]];
+		upWeights = new int[upTargets.length];
+		upMiddles = new int[upTargets.length];
+		downSources = new int[downOffsets[vertexCount]];
+		downWeights = new int[downSources.length];
+		downMiddles = new int[downSources.length];
+		for (int i = 0; i < vertexCount; i++) {
+			IntIntHashMap up = contractor.getUpEdges(i);
+			int position = upOffsets[i];
+			for (int slot = 0; slot < up.capacity(); slot++) {
+				if (up.keyAt(slot) != IntIntHashMap.EMPTY) {
+					upTargets[position] = up.keyAt(slot);
+					upWeights[position] = up.valueAt(slot);
+					upMiddles[position] = contractor.getMiddle(i, up.keyAt(slot));
+					position++;
+				}
+			}
+			IntIntHashMap down = contractor.getDownEdges(i);
+			position = downOffsets[i];
+			for (int slot = 0; slot < down.capacity(); slot++) {
+				if (down.keyAt(slot) != IntIntHashMap.EMPTY) {
+					downSources[position] = down.keyAt(slot);
+					downWeights[position] = down.valueAt(slot);
+					downMiddles[position] = contractor.getMiddle(down.keyAt(slot), i);
+					position++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the lowest-cost path from "start" to "end". The cost is always the
+	 * same as the cost of the path DoDijsktra reports; when several paths have
+	 * that cost, the two may pick different ones.
+	 *
+	 * @param start vertex where the path begins
+	 * @param end   vertex where the path ends
+	 * @return the lowest-cost path from start to end and its cost; the path is
+	 *         empty if "end" cannot be reached
+	 * @throws IllegalArgumentException if either vertex is not in the graph
+	 */
+	public ShortestPath<V> query(V start, V end) {
+		int first = vertices.getIndex(start);
+		int goal = vertices.getIndex(end);
+		if (first == -1 || goal == -1) {
+			throw new IllegalArgumentException();
+		}
+		Workspace workspace = workspaces.get();
+		workspace.begin();
+		workspace.reach(0, first, 0, -1);
+		workspace.reach(1, goal, 0, -1);
+
+		// side 0 goes up from start, side 1 goes up (against the edges) from end
+		int best = Integer.MAX_VALUE;
+		int meet = -1;
+		while (true) {
+			int side = -1;
+			for (int s = 0; s < 2; s++) {
+				IndexedMinHeap queue = workspace.queue[s];
+				// a side whose cheapest vertex costs at least "best" is done
+				if (!queue.isEmpty() && queue.getKey(queue.peek()) < best
+						&& (side == -1 || queue.getKey(queue.peek()) < workspace.queue[side]
+								.getKey(workspace.queue[side].peek()))) {
+					side = s;
+				}
+			}
+			if (side == -1) {
+				break;
+			}
+			int next = workspace.queue[side].poll();
+			int cost = workspace.distance[side][next];
+			if (workspace.isReached(1 - side, next)) {
+				int total = GraphAlgorithms.pathCost(cost, workspace.distance[1 - side][next]);
+				if (total < best) {
+					best = total;
+					meet = next;
+				}
+			}
+			if (side == 0) {
+				for (int edge = upOffsets[next]; edge < upOffsets[next + 1]; edge++) {
+					workspace.reach(0, upTargets[edge], GraphAlgorithms.pathCost(cost, upWeights[edge]), next);
+				}
+			} else {
+				for (int edge = downOffsets[next]; edge < downOffsets[next + 1]; edge++) {
+					workspace.reach(1, downSources[edge], GraphAlgorithms.pathCost(cost, downWeights[edge]), next);
+				}
+			}
+		}
+
+		if (meet == -1) {
+			return new ShortestPath<V>(start, end, -1, new ArrayList<V>());
+		}
+		// the hierarchy path: start up to the meeting vertex, then down to end
+		ArrayList<Integer> hierarchyPath = new ArrayList<Integer>();
+		for (int curr = meet; curr != -1; curr = workspace.predecessor[0][curr]) {
+			hierarchyPath.add(curr);
+		}
+		Collections.reverse(hierarchyPath);
+		for (int curr = workspace.predecessor[1][meet]; curr != -1; curr = workspace.predecessor[1][curr]) {
+			hierarchyPath.add(curr);
+		}
+		List<V> path = new ArrayList<V>();
+		path.add(start);
+		for (int i = 1; i < hierarchyPath.size(); i++) {
+			unpack(hierarchyPath.get(i - 1), hierarchyPath.get(i), path);
+		}
+		return new ShortestPath<V>(start, end, best, path);
+	}
+
+	/**
+	 * @return number of shortcut edges added while building the hierarchy
+	 */
+	public int getShortcutCount() {
+		return shortcutCount;
+	}
+
+	/**
+	 * @return how long building the hierarchy took, in milliseconds
+	 */
+	public long getPreprocessingMillis() {
+		return preprocessingMillis;
+	}
+
+	/*
+	 * Appends the vertices after "from" on the original path that the edge from
+	 * -> to stands for, replacing every shortcut by the two edges it skips over.
+	 */
+	private void unpack(int from, int to, List<V> path) {
+		int[] stack = new int[16];
+		int size = 0;
+		stack[size++] = from;
+		stack[size++] = to;
+		while (size > 0) {
+			int b = stack[--size];
+			int a = stack[--size];
+			int middle = middle(a, b);
+			if (middle == -1) {
+				path.add(vertices.getVertex(b));
+			} else {
+				if (size + 4 > stack.length) {
+					stack = Arrays.copyOf(stack, 2 * stack.length);
+				}
+				// the first half is unpacked first, so it goes on top
+				stack[size++] = middle;
+				stack[size++] = b;
+				stack[size++] = a;
+				stack[size++] = middle;
+			}
+		}
+	}
+
+	// the middle vertex of the edge a -> b, which is "up" from whichever is lower
+	private int middle(int a, int b) {
+		if (rank[b] > rank[a]) {
+			for (int edge = upOffsets[a]; edge < upOffsets[a + 1]; edge++) {
+				if (upTargets[edge] == b) {
+					return upMiddles[edge];
+				}
+			}
+		} else {
+			for (int edge = downOffsets[b]; edge < downOffsets[b + 1]; edge++) {
+				if (downSources[edge] == a) {
+					return downMiddles[edge];
+				}
+			}
+		}
+		throw new IllegalStateException();
+	}
+
+	/*
+	 * The arrays for one thread's queries. A vertex counts as reached by a side
+	 * only if its stamp matches the current query, so nothing has to be cleared
+	 * between queries.
+	 */
+	private static class Workspace {
+		private final int[][] distance;
+		private final int[][] predecessor;
+		private final int[][] stamp;
+		private final IndexedMinHeap[] queue;
+		private int generation;
+
+		private Workspace(int vertexCount) {
+			distance = new int[2][vertexCount];
+			predecessor = new int[2][vertexCount];
+			stamp = new int[2][vertexCount];
+			queue = new IndexedMinHeap[] { new IndexedMinHeap(vertexCount), new IndexedMinHeap(vertexCount) };
+		}
+
+		private void begin() {
+			queue[0].clear();
+			queue[1].clear();
+			if (generation == Integer.MAX_VALUE) {
+				Arrays.fill(stamp[0], 0);
+				Arrays.fill(stamp[1], 0);
+				generation = 0;
+			}
+			generation++;
+		}
+
+		private boolean isReached(int side, int vertex) {
+			return stamp[side][vertex] == generation;
+		}
+
+		/*
+		 * Records a path of the given cost to vertex, if it is the cheapest yet.
+		 * A cost of Integer.MAX_VALUE (see GraphAlgorithms.pathCost) is no path.
+		 */
+		private void reach(int side, int vertex, int cost, int from) {
+			if (cost == Integer.MAX_VALUE) {
+				return;
+			}
+			if (!isReached(side, vertex)) {
+				stamp[side][vertex] = generation;
+				distance[side][vertex] = cost;
+				predecessor[side][vertex] = from;
+				queue[side].add(vertex, cost);
+			} else if (cost < distance[side][vertex] && queue[side].contains(vertex)) {
+				distance[side][vertex] = cost;
+				predecessor[side][vertex] = from;
+				queue[side].decreaseKey(vertex, cost);
+			}
+		}
+	}
+}
@@ -0,0 +1,260 @@
+package graph;
+
+/**
+ * <P>
+ * The preprocessing step of a ContractionHierarchy. Vertices are "contracted"
+ * one at a time, cheapest first: a contracted vertex is taken out of the
+ * remaining graph, and for every pair of remaining neighbors u and w whose
+ * only shortest connection ran through it, a shortcut edge u -> w is added
+ * with the cost of that path. The order in which the vertices are contracted
+ * becomes their rank in the hierarchy.
+ * </P>
+ *
+ * <P>
+ * The cost of contracting a vertex is estimated from the "edge difference"
+ * (the number of shortcuts it would need, minus the number of edges it
+ * removes), counted twice, plus the number of its neighbors that are already
+ * contracted (which spreads the contractions evenly over the graph).
+ * Estimates go stale as the graph changes, so they are updated lazily: the
+ * vertex with the smallest estimate is only contracted if its estimate is
+ * still the smallest once it has been recomputed.
+ * </P>
+ */
+final class Contractor {
+
+	/*
+	 * A witness search (looking for a path that avoids the vertex being
+	 * contracted) gives up after finishing this many vertices. Giving up early
+	 * only adds a shortcut that was not strictly needed, never a wrong one.
+	 */
+	private static final int WITNESS_SEARCH_LIMIT = 100;
+
+	private final int vertexCount;
+
+	/*
+	 * The remaining graph plus every shortcut added so far. out[u] maps w to the
+	 * weight of u -> w and in[w] maps u to the same weight. middle[u] maps w to
+	 * the vertex a shortcut u -> w was added for; original edges are not in it.
+	 * When a vertex is contracted, its edges are removed from its neighbors'
+	 * maps but stay in its own: they all lead to (or come from) vertices that
+	 * are contracted later, which makes them its edges in the hierarchy.
+	 */
+	private final IntIntHashMap[] out;
+	private final IntIntHashMap[] in;
+	private final IntIntHashMap[] middle;
+	private final int[] contractedNeighbors;
+	private final int[] rank;
+	private int shortcutCount;
+
+	// witness search bookkeeping, reused by every search
+	private final int[] distance;
+	private final int[] stamp;
+	private int generation;
+	private final IndexedMinHeap witnessQueue;
+
+	/**
+	 * Copies the edges of the graph, keeping only the cheapest edge between any
+	 * two vertices and leaving out edges from a vertex to itself.
+	 *
+	 * @param graph graph to be contracted
+	 */
+	Contractor(IndexedGraph<?> graph) {
+		vertexCount = graph.getVertexCount();
+		out = new IntIntHashMap[vertexCount];
+		in = new IntIntHashMap[vertexCount];
+		middle = new IntIntHashMap[vertexCount];
+		for (int i = 0; i < vertexCount; i++) {
+			out[i] = new IntIntHashMap();
+			in[i] = new IntIntHashMap();
+			middle[i] = new IntIntHashMap();
+		}
+		EdgeBuffer edges = new EdgeBuffer();
+		for (int from = 0; from < vertexCount; from++) {
+			graph.getEdges(from, edges);
+			for (int i = 0; i < edges.size(); i++) {
+				int to = edges.getTarget(i);
+				int weight = edges.getWeight(i);
+				if (to != from && out[from].get(to, Integer.MAX_VALUE) > weight) {
+					out[from].put(to, weight);
+					in[to].put(from, weight);
+				}
+			}
+		}
+		contractedNeighbors = new int[vertexCount];
+		rank = new int[vertexCount];
+		distance = new int[vertexCount];
+		stamp = new int[vertexCount];
+		witnessQueue = new IndexedMinHeap(vertexCount);
+	}
+
+	/**
+	 * Contracts every vertex.
+	 *
+	 * @return rank[v], the position of v in the contraction order
+	 */
+	int[] contractAll() {
+		IndexedMinHeap order = new IndexedMinHeap(vertexCount);
+		for (int v = 0; v < vertexCount; v++) {
+			order.add(v, priority(v));
+		}
+		int nextRank = 0;
+		while (!order.isEmpty()) {
+			int v = order.poll();
+			int priority = priority(v);
+			// the estimate went stale; put it back unless it is still the smallest
+			if (!order.isEmpty() && priority > order.getKey(order.peek())) {
+				order.add(v, priority);
+				continue;
+			}
+			shortcuts(v, true);
+			rank[v] = nextRank++;
+			for (int slot = 0; slot < out[v].capacity(); slot++) {
+				int neighbor = out[v].keyAt(slot);
+				if (neighbor != IntIntHashMap.EMPTY) {
+					in[neighbor].remove(v);
+					contractedNeighbors[neighbor]++;
+				}
+			}
+			for (int slot = 0; slot < in[v].capacity(); slot++) {
+				int neighbor = in[v].keyAt(slot);
+				if (neighbor != IntIntHashMap.EMPTY) {
+					out[neighbor].remove(v);
+					contractedNeighbors[neighbor]++;
+				}
+			}
+		}
+		return rank;
+	}
+
+	/**
+	 * @return number of shortcuts added (or cheaper edges put in place of
+	 *         existing ones) during contraction
+	 */
+	int getShortcutCount() {
+		return shortcutCount;
+	}
+
+	/**
+	 * After contractAll, the edges (including shortcuts) from a vertex to
+	 * higher-ranked vertices.
+	 */
+	IntIntHashMap getUpEdges(int from) {
+		return out[from];
+	}
+
+	/**
+	 * After contractAll, the edges (including shortcuts) into a vertex from
+	 * higher-ranked vertices, keyed by the vertex they come from.
+	 */
+	IntIntHashMap getDownEdges(int to) {
+		return in[to];
+	}
+
+	/**
+	 * After contractAll, the vertex the shortcut from -> to skips over, or -1 if
+	 * that edge is an edge of the original graph.
+	 */
+	int getMiddle(int from, int to) {
+		return middle[from].get(to, -1);
+	}
+
+	private int priority(int v) {
+		int removedEdges = out[v].size() + in[v].size();
+		return 2 * (shortcuts(v, false) - removedEdges) + contractedNeighbors[v];
+	}
+
+	/*
+	 * Counts the shortcuts needed to contract v, and adds them if "add" is true.
+	 * A shortcut u -> w is needed unless a witness search from u finds a path to
+	 * w, avoiding v, that is no more expensive than u -> v -> w.
+	 */
+	private int shortcuts(int v, boolean add) {
+		int count = 0;
+		for (int inSlot = 0; inSlot < in[v].capacity(); inSlot++) {
+			int u = in[v].keyAt(inSlot);
+			if (!isVertex(u)) {
+				continue;
+			}
+			int toV = in[v].valueAt(inSlot);
+
+			int limit = -1;
+			for (int outSlot = 0; outSlot < out[v].capacity(); outSlot++) {
+				int w = out[v].keyAt(outSlot);
+				if (w != u && isVertex(w)) {
+					limit = Math.max(limit, GraphAlgorithms.pathCost(toV, out[v].valueAt(outSlot)));
+				}
+			}
+			if (limit == -1) {
+				continue;
+			}
+			witnessSearch(u, v, limit);
+
+			for (int outSlot = 0; outSlot < out[v].capacity(); outSlot++) {
+				int w = out[v].keyAt(outSlot);
+				if (w != u && isVertex(w)) {
+					int viaV = GraphAlgorithms.pathCost(toV, out[v].valueAt(outSlot));
+					// a path through v too costly to have a cost needs no shortcut
+					if (viaV != Integer.MAX_VALUE && (stamp[w] != generation || distance[w] > viaV)) {
+						count++;
+						if (add) {
+							addShortcut(u, w, viaV, v);
+						}
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/*
+	 * Dijkstra's algorithm from u over the remaining graph without v, stopping
+	 * once every remaining vertex costs more than "limit" or the search has
+	 * finished WITNESS_SEARCH_LIMIT vertices. Afterwards distance[w] is an upper
+	 * bound on the cost of reaching w for every w with stamp[w] == generation.
+	 */
+	private void witnessSearch(int u, int v, int limit) {
+		generation++;
+		stamp[u] = generation;
+		distance[u] = 0;
+		witnessQueue.add(u, 0);
+		int finished = 0;
+		while (!witnessQueue.isEmpty() && distance[witnessQueue.peek()] <= limit
+				&& finished < WITNESS_SEARCH_LIMIT) {
+			int next = witnessQueue.poll();
+			finished++;
+			for (int slot = 0; slot < out[next].capacity(); slot++) {
+				int curr = out[next].keyAt(slot);
+				if (!isVertex(curr) || curr == v) {
+					continue;
+				}
+				int newCost = GraphAlgorithms.pathCost(distance[next], out[next].valueAt(slot));
+				if (newCost == Integer.MAX_VALUE) {
+					continue;
+				}
+				if (stamp[curr] != generation) {
+					stamp[curr] = generation;
+					distance[curr] = newCost;
+					witnessQueue.add(curr, newCost);
+				} else if (newCost < distance[curr] && witnessQueue.contains(curr)) {
+					distance[curr] = newCost;
+					witnessQueue.decreaseKey(curr, newCost);
+				}
+			}
+		}
+		witnessQueue.clear();
+	}
+
+	private void addShortcut(int u, int w, int weight, int v) {
+		if (out[u].get(w, Integer.MAX_VALUE) > weight) {
+			out[u].put(w, weight);
+			in[w].put(u, weight);
+			middle[u].put(w, v);
+			shortcutCount++;
+		}
+	}
+
+	// true if a slot of an IntIntHashMap holds a (remaining) neighbor
+	private boolean isVertex(int slotKey) {
+		return slotKey != IntIntHashMap.EMPTY;
+	}
+}
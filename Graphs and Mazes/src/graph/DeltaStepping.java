@@ -0,0 +1,213 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <P>
+ * Meyer and Sanders' delta-stepping algorithm for the lowest costs from one
+ * vertex to every other, with the edges relaxed in parallel on the common
+ * ForkJoinPool. See AbstractIndexedGraph.DoDeltaStepping.
+ * </P>
+ *
+ * <P>
+ * Reached vertices are kept in buckets by cost: bucket i holds the vertices
+ * whose cost so far lies in [i * delta, (i + 1) * delta). The lowest nonempty
+ * bucket is emptied in rounds. Each round relaxes the "light" edges (weight at
+ * most delta) of every vertex taken out of the bucket, all at once; a vertex
+ * whose cost drops back into the bucket is taken out again in the next round.
+ * Once the bucket stays empty, the costs of the vertices taken out of it are
+ * final, and their "heavy" edges are relaxed, again all at once. A larger delta
+ * gives each round more vertices to share among the threads, at the price of
+ * relaxing some edges more than once.
+ * </P>
+ *
+ * <P>
+ * The cost and predecessor of a vertex are packed into one long and lowered
+ * with compare-and-set, so they always belong to the same path even when
+ * several threads find a cheaper path to the same vertex at once.
+ * </P>
+ */
+final class DeltaStepping {
+
+	// a round with fewer vertices than this per thread is not split further
+	private static final int MIN_CHUNK = 1024;
+
+	private static final long UNREACHED = pack(Integer.MAX_VALUE, -1);
+
+	private final IndexedGraph<?> graph;
+	private final int vertexCount;
+	private final int delta;
+	private final AtomicLongArray costAndPredecessor;
+
+	/*
+	 * The nonempty buckets by number. Only buckets that hold something exist,
+	 * so the memory used does not depend on the edge weights or on delta, and
+	 * the lowest nonempty bucket is found without walking over empty ones. A
+	 * bucket may hold a vertex more than once, or a vertex that has since moved
+	 * to a lower bucket; both are skipped when the bucket is emptied.
+	 */
+	private final TreeMap<Integer, Bucket> buckets = new TreeMap<Integer, Bucket>();
+	private final int[] takenIn;
+	private final int[] settledIn;
+	private int round;
+
+	private DeltaStepping(IndexedGraph<?> graph, int delta) {
+		this.graph = graph;
+		this.delta = delta;
+		vertexCount = graph.getVertexCount();
+		costAndPredecessor = new AtomicLongArray(vertexCount);
+		for (int v = 0; v < vertexCount; v++) {
+			costAndPredecessor.set(v, UNREACHED);
+		}
+		takenIn = new int[vertexCount];
+		settledIn = new int[vertexCount];
+		Arrays.fill(takenIn, -1);
+		Arrays.fill(settledIn, -1);
+	}
+
+	/**
+	 * Finds the lowest cost of reaching every vertex from "start".
+	 *
+	 * @throws IllegalArgumentException if the start vertex is not in the graph,
+	 *                                  or delta is less than 1
+	 */
+	static <V> ShortestPathTree<V> search(IndexedGraph<V> graph, V start, int delta) {
+		int first = graph.getIndex(start);
+		if (first == -1 || delta < 1) {
+			throw new IllegalArgumentException();
+		}
+		DeltaStepping search = new DeltaStepping(graph, delta);
+		search.run(first);
+
+		int[] cost = new int[search.vertexCount];
+		int[] predecessor = new int[search.vertexCount];
+		for (int v = 0; v < cost.length; v++) {
+			long packed = search.costAndPredecessor.get(v);
+			cost[v] = costOf(packed);
+			predecessor[v] = predecessorOf(packed);
+		}
+		return new ShortestPathTree<V>(graph, start, cost, predecessor);
+	}
+
+	private void run(int first) {
+		costAndPredecessor.set(first, pack(0, -1));
+		add(first);
+		while (!buckets.isEmpty()) {
+			int bucket = buckets.firstKey();
+			int settledCount = 0;
+			int[] settledVertices = new int[16];
+			Bucket entries;
+			while ((entries = buckets.remove(bucket)) != null) {
+				// take out every vertex that still belongs here, once each
+				round++;
+				int[] taken = new int[entries.size];
+				int takenCount = 0;
+				for (int i = 0; i < entries.size; i++) {
+					int v = entries.vertices[i];
+					if (costOf(costAndPredecessor.get(v)) / delta == bucket && takenIn[v] != round) {
+						takenIn[v] = round;
+						taken[takenCount++] = v;
+						if (settledIn[v] != bucket) {
+							settledIn[v] = bucket;
+							if (settledCount == settledVertices.length) {
+								settledVertices = Arrays.copyOf(settledVertices, 2 * settledCount);
+							}
+							settledVertices[settledCount++] = v;
+						}
+					}
+				}
+				distribute(relax(taken, takenCount, true));
+			}
+			distribute(relax(settledVertices, settledCount, false));
+		}
+	}
+
+	// puts every vertex whose cost went down into the bucket for its new cost
+	private void distribute(int[] lowered) {
+		for (int v : lowered) {
+			add(v);
+		}
+	}
+
+	private void add(int v) {
+		int number = costOf(costAndPredecessor.get(v)) / delta;
+		Bucket bucket = buckets.get(number);
+		if (bucket == null) {
+			bucket = new Bucket();
+			buckets.put(number, bucket);
+		} else if (bucket.size == bucket.vertices.length) {
+			bucket.vertices = Arrays.copyOf(bucket.vertices, 2 * bucket.size);
+		}
+		bucket.vertices[bucket.size++] = v;
+	}
+
+	/*
+	 * Relaxes the light (or heavy) edges leaving vertices[0] through
+	 * vertices[count - 1] in parallel, and returns every vertex whose cost went
+	 * down (possibly more than once).
+	 */
+	private int[] relax(final int[] vertices, int count, final boolean light) {
+		List<ParallelTasks.VertexCollector> tasks = new ArrayList<ParallelTasks.VertexCollector>();
+		int chunks = ParallelTasks.chunks(count, MIN_CHUNK);
+		for (int c = 0; c < chunks; c++) {
+			final int from = (int) ((long) count * c / chunks);
+			final int to = (int) ((long) count * (c + 1) / chunks);
+			tasks.add(new ParallelTasks.VertexCollector() {
+				public Void call() {
+					EdgeBuffer edges = new EdgeBuffer();
+					for (int i = from; i < to; i++) {
+						int next = vertices[i];
+						int cost = costOf(costAndPredecessor.get(next));
+						graph.getEdges(next, edges);
+						for (int e = 0; e < edges.size(); e++) {
+							int weight = edges.getWeight(e);
+							// a cost past Integer.MAX_VALUE never lowers anything
+						if ((weight <= delta) == light
+								&& lower(edges.getTarget(e), GraphAlgorithms.pathCost(cost, weight), next)) {
+								collect(edges.getTarget(e));
+							}
+						}
+					}
+					return null;
+				}
+			});
+		}
+		return ParallelTasks.collect(tasks);
+	}
+
+	// lowers the cost of "vertex" to newCost through "from", if that is cheaper
+	private boolean lower(int vertex, int newCost, int from) {
+		long packed = pack(newCost, from);
+		while (true) {
+			long current = costAndPredecessor.get(vertex);
+			if (costOf(current) <= newCost) {
+				return false;
+			}
+			if (costAndPredecessor.compareAndSet(vertex, current, packed)) {
+				return true;
+			}
+		}
+	}
+
+	private static long pack(int cost, int predecessor) {
+		return ((long) cost << 32) | (predecessor & 0xFFFFFFFFL);
+	}
+
+	private static int costOf(long packed) {
+		return (int) (packed >>> 32);
+	}
+
+	private static int predecessorOf(long packed) {
+		return (int) packed;
+	}
+
+	// the vertices filed in one bucket, in the order they were added
+	private static final class Bucket {
+		private int[] vertices = new int[16];
+		private int size;
+	}
+}
@@ -0,0 +1,93 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * <P>
+ * A reusable list of outgoing edges, stored as two parallel int arrays (target
+ * vertex indices and weights). An IndexedGraph fills an EdgeBuffer with the
+ * edges leaving one vertex; the graph algorithms keep one buffer per run and
+ * refill it for every vertex they expand, so walking the edges creates no
+ * objects once the buffer has grown to the largest out-degree.
+ * </P>
+ */
+public final class EdgeBuffer {
+
+	private int[] targets;
+	private int[] weights;
+	private int size;
+
+	/**
+	 * Creates an empty buffer.
+	 */
+	public EdgeBuffer() {
+		targets = new int[8];
+		weights = new int[8];
+	}
+
+	/**
+	 * @return number of edges in the buffer
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param i position of an edge in the buffer (0 to size() - 1)
+	 * @return index of the vertex the edge leads to
+	 */
+	public int getTarget(int i) {
+		return targets[i];
+	}
+
+	/**
+	 * @param i position of an edge in the buffer (0 to size() - 1)
+	 * @return weight of the edge
+	 */
+	public int getWeight(int i) {
+		return weights[i];
+	}
+
+	/**
+	 * Removes every edge from the buffer, keeping its storage.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Adds an edge to the end of the buffer.
+	 * 
+	 * @param target index of the vertex the edge leads to
+	 * @param weight weight of the edge
+	 */
+	public void add(int target, int weight) {
+		if (size == targets.length) {
+			targets = Arrays.copyOf(targets, 2 * size);
+			weights = Arrays.copyOf(weights, 2 * size);
+		}
+		targets[size] = target;
+		weights[size] = weight;
+		size++;
+	}
+
+	/**
+	 * Adds "count" edges to the end of the buffer, copying them from parallel
+	 * target and weight arrays.
+	 * 
+	 * @param fromTargets array holding the target indices
+	 * @param fromWeights array holding the weights
+	 * @param offset      position of the first edge in both arrays
+	 * @param count       number of edges to copy
+	 */
+	public void addAll(int[] fromTargets, int[] fromWeights, int offset, int count) {
+		if (size + count > targets.length) {
+			int capacity = Math.max(2 * targets.length, size + count);
+			targets = Arrays.copyOf(targets, capacity);
+			weights = Arrays.copyOf(weights, capacity);
+		}
+		System.arraycopy(fromTargets, offset, targets, size, count);
+		System.arraycopy(fromWeights, offset, weights, size, count);
+		size += count;
+	}
+}
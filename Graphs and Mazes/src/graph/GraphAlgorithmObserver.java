@@ -5,7 +5,7 @@ import java.util.List;
 /**
  * A GraphAlgorithmObserver will register with a WeightedGraph 
  * to let it know that it is "watching".  As algorithms are 
- * carried out on the WeightedGraph (BFS, DFS, Dijkstra), the 
+ * carried out on the WeightedGraph (BFS, DFS, Dijkstra, A*), the 
  * graph will notify the Observer to let it know how the 
  * algorithms are progressing.
  * 
@@ -64,4 +64,31 @@ public interface GraphAlgorithmObserver<V> {
 	 * path from start to finish.
 	 */
 	public void notifyDijkstraIsOver(List<V> path);
+	
+	/** Called by the graph to notify this observer that
+	 * an A* search has begun.  Observers that do not care
+	 * about A* can ignore this (and the other A* callbacks).
+	 */
+	public default void notifyAStarHasBegun() {
+	}
+	
+	/** Called by the graph to notify this observer that
+	 * a vertex has been finished during an A* search.  The 
+	 * second parameter is the cost of the best path found
+	 * from the starting vertex to this one.
+	 * 
+	 * @param vertexFinished
+	 * @param costOfPath
+	 */
+	public default void notifyAStarVertexFinished(V vertexFinished, Integer costOfPath) {
+	}
+	
+	/** Called by the graph to notify this observer that
+	 * an A* search is over.
+	 * 
+	 * @param path the lowest cost path from the starting vertex
+	 * to the ending vertex, or an empty list if there is none.
+	 */
+	public default void notifyAStarIsOver(List<V> path) {
+	}
 }
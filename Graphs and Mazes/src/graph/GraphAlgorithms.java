@@ -0,0 +1,732 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <P>
+ * The searches behind DoBFS, DoDFS, the DoDijsktra methods, DoAStar and the
+ * bidirectional searches, written once
+ * against IndexedGraph so that every graph representation reports exactly the
+ * same sequence of events to its GraphAlgorithmObservers. All bookkeeping is
+ * kept in arrays and BitSets indexed by vertex number.
+ * </P>
+ */
+final class GraphAlgorithms {
+
+	private GraphAlgorithms() {
+	}
+
+	/**
+	 * Breadth-First-Search from "start" that stops just before visiting "end".
+	 * See AbstractIndexedGraph.DoBFS for the events reported to the observers.
+	 * If "stats" is not null, the search is measured into it.
+	 *
+	 * @throws IllegalArgumentException if the start vertex is not in the graph
+	 */
+	static <V> void breadthFirstSearch(IndexedGraph<V> graph, Collection<GraphAlgorithmObserver<V>> observers,
+			V start, V end, SearchWorkspace workspace, SearchStats stats) {
+
+		int first = graph.getIndex(start);
+		if (first == -1) {
+			throw new IllegalArgumentException();
+		}
+
+		/*
+		 * A vertex is marked as discovered the first time it is put in the queue,
+		 * so every vertex is queued at most once and a plain array is enough.
+		 * Vertices still leave the queue in the same order as if duplicates had
+		 * been queued and skipped later.
+		 */
+		workspace.begin(graph.getVertexCount());
+		int[] discoveredQueue = workspace.vertices();
+		int head = 0;
+		int tail = 0;
+		EdgeBuffer edges = workspace.edges();
+		// the counters are plain locals, so keeping them costs next to nothing
+		long relaxed = 0;
+		int peak = 1;
+
+		discoveredQueue[tail++] = first; // add one into discovered
+		workspace.setDone(first);
+
+		for (GraphAlgorithmObserver<V> e : observers) {
+			e.notifyBFSHasBegun();
+		}
+		if (stats != null) {
+			stats.beginSearch();
+		}
+
+		// while the discovered queue is not empty
+		boolean found = false;
+		while (head < tail) {
+			// take from discoverQueue and remove it
+			int index = discoveredQueue[head++];
+			V key = graph.getVertex(index);
+
+			if (key.equals(end)) {
+				found = true;
+				break;
+			}
+
+			for (GraphAlgorithmObserver<V> e : observers) {
+				e.notifyVisit(key);
+			}
+
+			graph.getEdges(index, edges); // get the neighbors
+			relaxed += edges.size();
+			for (int i = 0; i < edges.size(); i++) {
+				int neighbor = edges.getTarget(i);
+				if (!workspace.isDone(neighbor)) {
+					workspace.setDone(neighbor);
+					discoveredQueue[tail++] = neighbor;
+				}
+			}
+			if (tail - head > peak) {
+				peak = tail - head;
+			}
+		}
+
+		if (stats != null) {
+			stats.beginResult();
+			stats.count(found ? head - 1 : head, relaxed, tail, head, 0, peak);
+		}
+		if (found) {
+			for (GraphAlgorithmObserver<V> e : observers) {
+				e.notifySearchIsOver();
+			}
+		}
+	}
+
+	/**
+	 * Depth-First-Search from "start" that stops just before visiting "end". See
+	 * AbstractIndexedGraph.DoDFS for the events reported to the observers. If
+	 * "stats" is not null, the search is measured into it.
+	 *
+	 * @throws IllegalArgumentException if the start vertex is not in the graph
+	 */
+	static <V> void depthFirstSearch(IndexedGraph<V> graph, Collection<GraphAlgorithmObserver<V>> observers,
+			V start, V end, SearchWorkspace workspace, SearchStats stats) {
+
+		int first = graph.getIndex(start);
+		if (first == -1) {
+			throw new IllegalArgumentException();
+		}
+
+		for (GraphAlgorithmObserver<V> e : observers) {
+			e.notifyDFSHasBegun();
+		}
+		// a vertex may be pushed once per edge leading to it, so the stack grows
+		workspace.begin(graph.getVertexCount());
+		int[] stack = workspace.vertices();
+		int size = 0;
+		EdgeBuffer edges = workspace.edges();
+		int visited = 0;
+		long relaxed = 0;
+		long pushes = 1;
+		long pops = 0;
+		int peak = 1;
+		if (stats != null) {
+			stats.beginSearch();
+		}
+
+		stack[size++] = first;
+		boolean found = false;
+		while (size > 0) {
+			int top = stack[--size];
+			pops++;
+			// if the key hasn't been visited yet, go visit it
+			if (!workspace.isDone(top)) {
+				V key = graph.getVertex(top);
+
+				// If key is equal to the end, the search is over
+				if (key.equals(end)) {
+					found = true;
+					break;
+				}
+				// notify that you are visiting the key
+				for (GraphAlgorithmObserver<V> e : observers) {
+					e.notifyVisit(key);
+				}
+				// add the key to the visited set
+				workspace.setDone(top);
+				visited++;
+
+				graph.getEdges(top, edges);
+				relaxed += edges.size();
+				for (int i = 0; i < edges.size(); i++) {
+					int neighbor = edges.getTarget(i);
+					if (!workspace.isDone(neighbor)) {
+						if (size == stack.length) {
+							stack = workspace.growVertices();
+						}
+						stack[size++] = neighbor;
+						pushes++;
+					}
+				}
+				if (size > peak) {
+					peak = size;
+				}
+			}
+		}
+
+		if (stats != null) {
+			stats.beginResult();
+			stats.count(visited, relaxed, pushes, pops, 0, peak);
+		}
+		if (found) {
+			for (GraphAlgorithmObserver<V> e : observers) {
+				e.notifySearchIsOver();
+			} // leave
+		}
+	}
+
+	/**
+	 * Dijkstra's algorithm from "start" over every reachable vertex, reporting
+	 * the lowest-cost path to "end" at the end. See
+	 * AbstractIndexedGraph.DoDijsktra for the events reported to the observers.
+	 * If "stats" is not null, the search is measured into it.
+	 *
+	 * @return the costs and paths to every vertex
+	 * @throws IllegalArgumentException if the start vertex is not in the graph
+	 */
+	static <V> ShortestPathTree<V> dijkstra(IndexedGraph<V> graph, Collection<GraphAlgorithmObserver<V>> observers, V start,
+			V end, ShortestPathEngine engine, SearchStats stats) {
+
+		int first = graph.getIndex(start);
+		if (first == -1) {
+			throw new IllegalArgumentException();
+		}
+
+		for (GraphAlgorithmObserver<V> e : observers) {
+			e.notifyDijkstraHasBegun();
+		}
+
+		// costs and predecessors live in arrays, using each vertex's index
+		int vertexCount = graph.getVertexCount();
+		int[] cost = new int[vertexCount];
+		int[] predecessor = new int[vertexCount];
+		BitSet finished = new BitSet(vertexCount);
+		settle(graph, observers, first, engine, null, false, cost, predecessor, finished, null, stats);
+		ShortestPathTree<V> tree = new ShortestPathTree<V>(graph, start, cost, predecessor);
+
+		// path is in a format that can be passed through the notify
+		List<V> path = graph.getIndex(end) == -1 ? new ArrayList<V>() : tree.pathTo(end);
+		// method is over and is notified
+		for (GraphAlgorithmObserver<V> e : observers) {
+			e.notifyDijkstraIsOver(path);
+		}
+		return tree;
+	}
+
+	/**
+	 * Dijkstra's algorithm from "start" that stops as soon as "end" is finished,
+	 * keeping all its bookkeeping in a SearchWorkspace. See
+	 * AbstractIndexedGraph.DoDijsktraTo.
+	 *
+	 * @throws IllegalArgumentException if the start vertex is not in the graph
+	 */
+	static <V> ShortestPath<V> dijkstraTo(IndexedGraph<V> graph, V start, V end, SearchWorkspace workspace) {
+		int first = graph.getIndex(start);
+		if (first == -1) {
+			throw new IllegalArgumentException();
+		}
+		int goal = graph.getIndex(end);
+
+		workspace.begin(graph.getVertexCount());
+		IndexedPriorityQueue unfinished = workspace.queue(graph.getMaxEdgeWeight());
+		EdgeBuffer edges = workspace.edges();
+		workspace.reach(first, 0, -1);
+		unfinished.add(first, 0);
+		while (!unfinished.isEmpty()) {
+			int next = unfinished.poll();
+			workspace.setDone(next);
+			if (next == goal) {
+				ArrayList<V> path = new ArrayList<V>();
+				for (int curr = goal; curr != -1; curr = workspace.getPredecessor(curr)) {
+					path.add(graph.getVertex(curr));
+				}
+				Collections.reverse(path);
+				return new ShortestPath<V>(start, end, workspace.getCost(goal), path);
+			}
+			graph.getEdges(next, edges);
+			for (int i = 0; i < edges.size(); i++) {
+				int curr = edges.getTarget(i);
+				if (workspace.isDone(curr)) {
+					continue;
+				}
+				int newCost = pathCost(workspace.getCost(next), edges.getWeight(i));
+				if (newCost == Integer.MAX_VALUE) {
+					continue;
+				}
+				if (!workspace.isReached(curr)) {
+					workspace.reach(curr, newCost, next);
+					unfinished.add(curr, newCost);
+				} else if (newCost < workspace.getCost(curr)) {
+					workspace.reach(curr, newCost, next);
+					unfinished.decreaseKey(curr, newCost);
+				}
+			}
+		}
+		// "end" is not in the graph, or cannot be reached
+		return new ShortestPath<V>(start, end, -1, new ArrayList<V>());
+	}
+
+	/**
+	 * Dijkstra's algorithm from "start" that stops as soon as every vertex in
+	 * "targets" is finished (or every reachable vertex is, if some target cannot
+	 * be reached). See AbstractIndexedGraph.DoDijsktraToAll.
+	 *
+	 * @throws IllegalArgumentException if the start vertex is not in the graph
+	 */
+	static <V> Map<V, ShortestPath<V>> dijkstraToTargets(IndexedGraph<V> graph, V start,
+			Collection<? extends V> targets, ShortestPathEngine engine) {
+
+		int first = graph.getIndex(start);
+		if (first == -1) {
+			throw new IllegalArgumentException();
+		}
+
+		// targets that are not in the graph can never be reached, so no need to
+		// wait for them
+		int vertexCount = graph.getVertexCount();
+		BitSet targetSet = new BitSet(vertexCount);
+		for (V target : targets) {
+			int index = graph.getIndex(target);
+			if (index != -1) {
+				targetSet.set(index);
+			}
+		}
+
+		int[] cost = new int[vertexCount];
+		int[] predecessor = new int[vertexCount];
+		BitSet finished = new BitSet(vertexCount);
+		settle(graph, Collections.<GraphAlgorithmObserver<V>>emptyList(), first, engine, targetSet, false, cost,
+				predecessor, finished, null, null);
+
+		// every target is now either finished or unreachable, so the partial tree
+		// holds its final cost and path
+		ShortestPathTree<V> tree = new ShortestPathTree<V>(graph, start, cost, predecessor);
+		Map<V, ShortestPath<V>> paths = new LinkedHashMap<V, ShortestPath<V>>();
+		for (V target : targets) {
+			if (graph.getIndex(target) == -1) {
+				paths.put(target, new ShortestPath<V>(start, target, -1, new ArrayList<V>()));
+			} else {
+				paths.put(target, new ShortestPath<V>(start, target, tree.distanceTo(target), tree.pathTo(target)));
+			}
+		}
+		return paths;
+	}
+
+	/**
+	 * Dijkstra's algorithm from the vertex with index "first" over every
+	 * reachable vertex, without observers. With "reverse" set it follows the
+	 * edges backwards, so cost[v] becomes the cost of the cheapest path from v
+	 * to "first" and predecessor[v] the next vertex on it.
+	 *
+	 * @param cost        receives the cost of every vertex (Integer.MAX_VALUE if
+	 *                    not reachable)
+	 * @param predecessor receives the predecessor of every vertex (-1 if none)
+	 * @param order       if not null, receives the vertices in the order they
+	 *                    were finished
+	 * @return the number of vertices finished
+	 */
+	static <V> int distances(IndexedGraph<V> graph, int first, boolean reverse, int[] cost, int[] predecessor,
+			int[] order) {
+		return settle(graph, Collections.<GraphAlgorithmObserver<V>>emptyList(), first, ShortestPathEngine.AUTO, null,
+				reverse, cost, predecessor, new BitSet(cost.length), order, null);
+	}
+
+	/*
+	 * The main loop of Dijkstra's algorithm. Fills in "cost", "predecessor" and
+	 * "finished" for every vertex finished, notifying the observers of each one,
+	 * and stops once every vertex in "targets" is finished. A null "targets"
+	 * means every reachable vertex. A vertex that was never reached is left with
+	 * cost Integer.MAX_VALUE and predecessor -1. With "reverse" set, the edges
+	 * are followed backwards. If "order" is not null, the finished vertices are
+	 * written to it in order. If "stats" is not null, the main loop is measured
+	 * into it. Returns the number of vertices finished.
+	 */
+	private static <V> int settle(IndexedGraph<V> graph, Collection<GraphAlgorithmObserver<V>> observers, int first,
+			ShortestPathEngine engine, BitSet targets, boolean reverse, int[] cost, int[] predecessor, BitSet finished,
+			int[] order, SearchStats stats) {
+
+		// every cost starts out "infinite" and every predecessor is unknown
+		Arrays.fill(cost, Integer.MAX_VALUE);
+		Arrays.fill(predecessor, -1);
+
+		int remaining = targets == null ? -1 : targets.cardinality();
+		if (remaining == 0) {
+			return 0;
+		}
+		int finishedCount = 0;
+		IndexedPriorityQueue unfinished = createQueue(cost.length, graph.getMaxEdgeWeight(), engine);
+		EdgeBuffer edges = new EdgeBuffer();
+		// the counters are plain locals, so keeping them costs next to nothing
+		long relaxed = 0;
+		long inserts = 1;
+		long decreases = 0;
+		int frontier = 1;
+		int peak = 1;
+		if (stats != null) {
+			stats.beginSearch();
+		}
+
+		// to move the the start it costs zero
+		cost[first] = 0;
+		unfinished.add(first, 0);
+
+		// while there are still reachable vertices that are not finished
+		while (!unfinished.isEmpty()) {
+			// the queue hands back the unfinished vertex with the smallest cost
+			int next = unfinished.poll();
+			frontier--;
+			finished.set(next);
+			if (order != null) {
+				order[finishedCount] = next;
+			}
+			finishedCount++;
+			for (GraphAlgorithmObserver<V> e : observers) {
+				e.notifyDijkstraVertexFinished(graph.getVertex(next), cost[next]);
+			}
+			// the cost of a finished vertex can no longer change
+			if (targets != null && targets.get(next) && --remaining == 0) {
+				break;
+			}
+
+			// Now doing the neighbors of that smallest
+			if (reverse) {
+				graph.getReverseEdges(next, edges);
+			} else {
+				graph.getEdges(next, edges);
+			}
+			relaxed += edges.size();
+			for (int i = 0; i < edges.size(); i++) {
+				int curr = edges.getTarget(i);
+				// skip neighbors that are already finished
+				if (!finished.get(curr)) {
+					int newCost = pathCost(cost[next], edges.getWeight(i));
+					// if the path through next is cheaper, remember it
+					if (newCost < cost[curr]) {
+						cost[curr] = newCost;
+						predecessor[curr] = next;
+						if (unfinished.contains(curr)) {
+							unfinished.decreaseKey(curr, newCost);
+							decreases++;
+						} else {
+							unfinished.add(curr, newCost);
+							inserts++;
+							if (++frontier > peak) {
+								peak = frontier;
+							}
+						}
+					}
+				}
+			}
+		}
+		if (stats != null) {
+			stats.beginResult();
+			stats.count(finishedCount, relaxed, inserts, finishedCount, decreases, peak);
+		}
+		return finishedCount;
+	}
+
+	/**
+	 * A* search from "start" that stops once "end" is finished. See
+	 * AbstractIndexedGraph.DoAStar for the events reported to the observers.
+	 *
+	 * @throws IllegalArgumentException if either vertex is not in the graph
+	 */
+	static <V> void aStar(IndexedGraph<V> graph, Collection<GraphAlgorithmObserver<V>> observers, V start, V end,
+			Heuristic<V> heuristic) {
+
+		int first = graph.getIndex(start);
+		int goal = graph.getIndex(end);
+		if (first == -1 || goal == -1) {
+			throw new IllegalArgumentException();
+		}
+
+		for (GraphAlgorithmObserver<V> e : observers) {
+			e.notifyAStarHasBegun();
+		}
+
+		int vertexCount = graph.getVertexCount();
+		int[] cost = new int[vertexCount];
+		int[] predecessor = new int[vertexCount];
+		// the heuristic is asked once per vertex; -1 means "not asked yet"
+		int[] estimate = new int[vertexCount];
+		IndexedMinHeap open = new IndexedMinHeap(vertexCount);
+		EdgeBuffer edges = new EdgeBuffer();
+
+		Arrays.fill(cost, Integer.MAX_VALUE);
+		Arrays.fill(predecessor, -1);
+		Arrays.fill(estimate, -1);
+
+		cost[first] = 0;
+		open.add(first, estimate(graph, heuristic, estimate, first, end));
+
+		while (!open.isEmpty()) {
+			// the vertex with the smallest cost + estimate is finished next
+			int next = open.poll();
+			for (GraphAlgorithmObserver<V> e : observers) {
+				e.notifyAStarVertexFinished(graph.getVertex(next), cost[next]);
+			}
+			if (next == goal) {
+				break;
+			}
+
+			graph.getEdges(next, edges);
+			for (int i = 0; i < edges.size(); i++) {
+				int curr = edges.getTarget(i);
+				int newCost = pathCost(cost[next], edges.getWeight(i));
+				/*
+				 * A finished vertex only gets a cheaper path if the heuristic is
+				 * inconsistent; it then goes back into the heap to be finished again.
+				 */
+				if (newCost < cost[curr]) {
+					cost[curr] = newCost;
+					predecessor[curr] = next;
+					int key = pathCost(newCost, estimate(graph, heuristic, estimate, curr, end));
+					if (open.contains(curr)) {
+						open.decreaseKey(curr, key);
+					} else {
+						open.add(curr, key);
+					}
+				}
+			}
+		}
+
+		ArrayList<V> path = new ArrayList<V>();
+		if (cost[goal] != Integer.MAX_VALUE) {
+			for (int curr = goal; curr != -1; curr = predecessor[curr]) {
+				path.add(graph.getVertex(curr));
+			}
+			Collections.reverse(path);
+		}
+		for (GraphAlgorithmObserver<V> e : observers) {
+			e.notifyAStarIsOver(path);
+		}
+	}
+
+	/**
+	 * Dijkstra's algorithm run from "start" over the edges and from "end" over
+	 * the reverse edges at the same time. See
+	 * AbstractIndexedGraph.DoBidirectionalDijkstra.
+	 *
+	 * @throws IllegalArgumentException if either vertex is not in the graph
+	 */
+	static <V> List<V> bidirectionalDijkstra(IndexedGraph<V> graph, V start, V end) {
+		int first = graph.getIndex(start);
+		int goal = graph.getIndex(end);
+		if (first == -1 || goal == -1) {
+			throw new IllegalArgumentException();
+		}
+
+		/*
+		 * Side 0 searches forwards from start, side 1 backwards from end. For the
+		 * backward side, predecessor[1][v] is the next vertex on the way to end.
+		 */
+		int vertexCount = graph.getVertexCount();
+		int[][] cost = new int[2][vertexCount];
+		int[][] predecessor = new int[2][vertexCount];
+		BitSet[] finished = { new BitSet(vertexCount), new BitSet(vertexCount) };
+		IndexedMinHeap[] unfinished = { new IndexedMinHeap(vertexCount), new IndexedMinHeap(vertexCount) };
+		EdgeBuffer edges = new EdgeBuffer();
+
+		for (int side = 0; side < 2; side++) {
+			Arrays.fill(cost[side], Integer.MAX_VALUE);
+			Arrays.fill(predecessor[side], -1);
+		}
+		cost[0][first] = 0;
+		unfinished[0].add(first, 0);
+		cost[1][goal] = 0;
+		unfinished[1].add(goal, 0);
+
+		// best is the cheapest start-to-end path seen so far, through the edge from
+		// meetFrom to meetTo (Integer.MAX_VALUE while there is none)
+		int best = first == goal ? 0 : Integer.MAX_VALUE;
+		int meetFrom = first;
+		int meetTo = first;
+
+		while (!unfinished[0].isEmpty() && !unfinished[1].isEmpty()) {
+			int forwardTop = cost[0][unfinished[0].peek()];
+			int backwardTop = cost[1][unfinished[1].peek()];
+			// no path found later can be cheaper than the two smallest costs
+			// combined, so once that reaches the best path, it is the answer
+			if (pathCost(forwardTop, backwardTop) >= best) {
+				break;
+			}
+			int side = forwardTop <= backwardTop ? 0 : 1;
+			int other = 1 - side;
+			int next = unfinished[side].poll();
+			finished[side].set(next);
+
+			if (side == 0) {
+				graph.getEdges(next, edges);
+			} else {
+				graph.getReverseEdges(next, edges);
+			}
+			for (int i = 0; i < edges.size(); i++) {
+				int curr = edges.getTarget(i);
+				int newCost = pathCost(cost[side][next], edges.getWeight(i));
+				if (!finished[side].get(curr) && newCost < cost[side][curr]) {
+					cost[side][curr] = newCost;
+					predecessor[side][curr] = next;
+					if (unfinished[side].contains(curr)) {
+						unfinished[side].decreaseKey(curr, newCost);
+					} else {
+						unfinished[side].add(curr, newCost);
+					}
+				}
+				// an edge reaching a vertex the other side has seen closes a path
+				if (pathCost(newCost, cost[other][curr]) < best) {
+					best = pathCost(newCost, cost[other][curr]);
+					meetFrom = side == 0 ? next : curr;
+					meetTo = side == 0 ? curr : next;
+				}
+			}
+		}
+
+		ArrayList<V> path = new ArrayList<V>();
+		if (best != Integer.MAX_VALUE) {
+			for (int curr = meetFrom; curr != -1; curr = predecessor[0][curr]) {
+				path.add(graph.getVertex(curr));
+			}
+			Collections.reverse(path);
+			if (meetTo != meetFrom) {
+				for (int curr = meetTo; curr != -1; curr = predecessor[1][curr]) {
+					path.add(graph.getVertex(curr));
+				}
+			}
+		}
+		return path;
+	}
+
+	/**
+	 * Breadth-First-Search from "start" over the edges and from "end" over the
+	 * reverse edges, one whole level at a time. See
+	 * AbstractIndexedGraph.DoBidirectionalBFS.
+	 *
+	 * @throws IllegalArgumentException if either vertex is not in the graph
+	 */
+	static <V> List<V> bidirectionalBreadthFirstSearch(IndexedGraph<V> graph, V start, V end) {
+		int first = graph.getIndex(start);
+		int goal = graph.getIndex(end);
+		if (first == -1 || goal == -1) {
+			throw new IllegalArgumentException();
+		}
+		ArrayList<V> path = new ArrayList<V>();
+		if (first == goal) {
+			path.add(start);
+			return path;
+		}
+
+		// depth[side][v] is -1 until the side discovers v
+		int vertexCount = graph.getVertexCount();
+		int[][] depth = new int[2][vertexCount];
+		int[][] predecessor = new int[2][vertexCount];
+		int[][] queue = new int[2][vertexCount];
+		int[] head = new int[2];
+		int[] tail = new int[2];
+		EdgeBuffer edges = new EdgeBuffer();
+
+		for (int side = 0; side < 2; side++) {
+			Arrays.fill(depth[side], -1);
+			Arrays.fill(predecessor[side], -1);
+		}
+		depth[0][first] = 0;
+		queue[0][tail[0]++] = first;
+		depth[1][goal] = 0;
+		queue[1][tail[1]++] = goal;
+
+		while (head[0] < tail[0] && head[1] < tail[1]) {
+			// grow the side whose next level is smaller
+			int side = tail[0] - head[0] <= tail[1] - head[1] ? 0 : 1;
+			int other = 1 - side;
+
+			/*
+			 * The whole level is expanded before stopping, because the first edge
+			 * that meets the other side is not necessarily on the shortest path; the
+			 * shortest meeting found in this level is.
+			 */
+			int best = Integer.MAX_VALUE;
+			int meetFrom = -1;
+			int meetTo = -1;
+			int levelEnd = tail[side];
+			while (head[side] < levelEnd) {
+				int next = queue[side][head[side]++];
+				if (side == 0) {
+					graph.getEdges(next, edges);
+				} else {
+					graph.getReverseEdges(next, edges);
+				}
+				for (int i = 0; i < edges.size(); i++) {
+					int curr = edges.getTarget(i);
+					if (depth[side][curr] == -1) {
+						depth[side][curr] = depth[side][next] + 1;
+						predecessor[side][curr] = next;
+						queue[side][tail[side]++] = curr;
+					}
+					if (depth[other][curr] != -1 && depth[side][next] + 1 + depth[other][curr] < best) {
+						best = depth[side][next] + 1 + depth[other][curr];
+						meetFrom = side == 0 ? next : curr;
+						meetTo = side == 0 ? curr : next;
+					}
+				}
+			}
+			if (best != Integer.MAX_VALUE) {
+				for (int curr = meetFrom; curr != -1; curr = predecessor[0][curr]) {
+					path.add(graph.getVertex(curr));
+				}
+				Collections.reverse(path);
+				for (int curr = meetTo; curr != -1; curr = predecessor[1][curr]) {
+					path.add(graph.getVertex(curr));
+				}
+				return path;
+			}
+		}
+		return path;
+	}
+
+	// the heuristic's estimate for a vertex, asking the heuristic only once
+	/*
+	 * The cost of a path costing "cost" followed by an edge (or another path)
+	 * costing "weight". The sum is worked out as a long; if it is not below
+	 * Integer.MAX_VALUE, the cost the algorithms give a vertex they have not
+	 * reached, the result is Integer.MAX_VALUE, so a path that costly counts as
+	 * no path at all instead of wrapping around to a negative cost.
+	 */
+	static int pathCost(int cost, int weight) {
+		long sum = (long) cost + weight;
+		return sum < Integer.MAX_VALUE ? (int) sum : Integer.MAX_VALUE;
+	}
+
+	private static <V> int estimate(IndexedGraph<V> graph, Heuristic<V> heuristic, int[] estimate, int index,
+			V end) {
+		if (estimate[index] == -1) {
+			estimate[index] = Math.max(0, heuristic.estimate(graph.getVertex(index), end));
+		}
+		return estimate[index];
+	}
+
+	/*
+	 * Creates the priority queue that Dijkstra's algorithm uses for the given
+	 * engine. AUTO only picks the bucket queue when the edge weights are small
+	 * enough that walking over the buckets is cheaper than sifting a heap, and
+	 * even BUCKET_QUEUE falls back to the heap rather than allocate one bucket
+	 * for each of billions of possible weights.
+	 */
+	static IndexedPriorityQueue createQueue(int capacity, int maxEdgeWeight, ShortestPathEngine engine) {
+		if ((engine == ShortestPathEngine.BUCKET_QUEUE && maxEdgeWeight <= ShortestPathEngine.BUCKET_WEIGHT_LIMIT)
+				|| (engine == ShortestPathEngine.AUTO && maxEdgeWeight <= ShortestPathEngine.SMALL_WEIGHT_LIMIT)) {
+			return new BucketQueue(capacity, maxEdgeWeight);
+		}
+		return new IndexedMinHeap(capacity);
+	}
+}
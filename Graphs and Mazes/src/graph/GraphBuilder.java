@@ -0,0 +1,304 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <P>
+ * Collects the vertices and edges of a graph that is built all at once (a
+ * maze, a road network read from a file) and produces the finished
+ * WeightedGraph, or a GraphSnapshot, in a single pass. The expected numbers of
+ * vertices and edges size every table up front, and edges are given by vertex
+ * index, one at a time or many at once from parallel int arrays, so the
+ * vertices are not looked up again for each edge. addEdges checks a whole
+ * batch before keeping any of it.
+ * </P>
+ *
+ * <P>
+ * The result is the same graph that addVertex and addEdge calls in the same
+ * order would have made: vertices get their indices in the order they were
+ * added, an edge added twice keeps the last weight, and each vertex's edges
+ * are listed in the same order.
+ * </P>
+ *
+ * @param <V> type of the vertices
+ */
+public final class GraphBuilder<V> {
+
+	private final List<V> vertexList;
+	private final Map<V, Integer> vertexIndex;
+
+	// the edges in the order they were added, as parallel arrays
+	private int[] sources;
+	private int[] targets;
+	private int[] weights;
+	private int edgeCount;
+
+	/**
+	 * Creates an empty builder with room for the given numbers of vertices and
+	 * edges. Either may be exceeded; the builder then grows as needed.
+	 *
+	 * @param expectedVertices how many vertices the graph will have
+	 * @param expectedEdges    how many edges the graph will have
+	 * @throws IllegalArgumentException if either number is negative
+	 */
+	public GraphBuilder(int expectedVertices, int expectedEdges) {
+		if (expectedVertices < 0 || expectedEdges < 0) {
+			throw new IllegalArgumentException();
+		}
+		vertexList = new ArrayList<V>(expectedVertices);
+		vertexIndex = new HashMap<V, Integer>(capacityFor(expectedVertices));
+		sources = new int[expectedEdges];
+		targets = new int[expectedEdges];
+		weights = new int[expectedEdges];
+	}
+
+	/**
+	 * Adds a vertex, giving it the next index.
+	 *
+	 * @param vertex vertex to be added
+	 * @return the index of the vertex
+	 * @throws IllegalArgumentException if the vertex has already been added
+	 */
+	public int addVertex(V vertex) {
+		int index = vertexList.size();
+		// one lookup both checks for the vertex and adds it
+		Integer old = vertexIndex.put(vertex, index);
+		if (old != null) {
+			vertexIndex.put(vertex, old);
+			throw new IllegalArgumentException();
+		}
+		vertexList.add(vertex);
+		return index;
+	}
+
+	/**
+	 * Adds each of the vertices in turn, as addVertex does.
+	 *
+	 * @param vertices vertices to be added
+	 * @throws IllegalArgumentException if a vertex has already been added; the
+	 *                                  ones before it are kept
+	 */
+	public void addVertices(Collection<? extends V> vertices) {
+		for (V vertex : vertices) {
+			addVertex(vertex);
+		}
+	}
+
+	/**
+	 * @param vertex a vertex
+	 * @return its index, or -1 if it has not been added
+	 */
+	public int getIndex(V vertex) {
+		Integer index = vertexIndex.get(vertex);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * @return number of vertices added so far
+	 */
+	public int getVertexCount() {
+		return vertexList.size();
+	}
+
+	/**
+	 * @return number of edges added so far, counting an edge added twice as two
+	 */
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * Adds an edge between two vertices given by index. An edge added again
+	 * later replaces this one, as with WeightedGraph.addEdge.
+	 *
+	 * @param from   index of the vertex the edge leads from
+	 * @param to     index of the vertex the edge leads to
+	 * @param weight the (non-negative) weight of the edge
+	 * @throws IllegalArgumentException when either index is not that of a vertex
+	 *                                  added so far, or the weight is negative
+	 */
+	public void addEdge(int from, int to, int weight) {
+		if (!isVertex(from) || !isVertex(to) || weight < 0) {
+			throw new IllegalArgumentException();
+		}
+		ensureRoom(1);
+		sources[edgeCount] = from;
+		targets[edgeCount] = to;
+		weights[edgeCount] = weight;
+		edgeCount++;
+	}
+
+	/**
+	 * Adds an edge between two vertices, as WeightedGraph.addEdge does.
+	 *
+	 * @param from   the vertex the edge leads from
+	 * @param to     the vertex the edge leads to
+	 * @param weight the (non-negative) weight of the edge
+	 * @throws IllegalArgumentException when either vertex has not been added, or
+	 *                                  the weight is negative
+	 */
+	public void addEdge(V from, V to, int weight) {
+		addEdge(getIndex(from), getIndex(to), weight);
+	}
+
+	/**
+	 * Adds every edge held in three parallel arrays: the i-th edge leads from
+	 * the vertex with index from[i] to the one with index to[i] and has weight
+	 * weights[i].
+	 *
+	 * @param from    indices of the vertices the edges lead from
+	 * @param to      indices of the vertices the edges lead to
+	 * @param weights weights of the edges
+	 * @throws IllegalArgumentException if the arrays differ in length
+	 */
+	public void addEdges(int[] from, int[] to, int[] weights) {
+		if (from.length != to.length || from.length != weights.length) {
+			throw new IllegalArgumentException();
+		}
+		addEdges(from, to, weights, 0, from.length);
+	}
+
+	/**
+	 * Adds "count" edges held in three parallel arrays, starting at position
+	 * "offset" of each. The whole batch is checked first: if any of the edges is
+	 * invalid, none of them is added.
+	 *
+	 * @param from    indices of the vertices the edges lead from
+	 * @param to      indices of the vertices the edges lead to
+	 * @param weights weights of the edges
+	 * @param offset  position of the first edge in the arrays
+	 * @param count   number of edges to add
+	 * @throws IllegalArgumentException if the range is outside any of the
+	 *                                  arrays, an index is not that of a vertex
+	 *                                  added so far, or a weight is negative
+	 */
+	public void addEdges(int[] from, int[] to, int[] weights, int offset, int count) {
+		if (offset < 0 || count < 0 || offset > from.length - count || offset > to.length - count
+				|| offset > weights.length - count) {
+			throw new IllegalArgumentException();
+		}
+		for (int i = offset; i < offset + count; i++) {
+			if (!isVertex(from[i]) || !isVertex(to[i]) || weights[i] < 0) {
+				throw new IllegalArgumentException();
+			}
+		}
+		ensureRoom(count);
+		System.arraycopy(from, offset, sources, edgeCount, count);
+		System.arraycopy(to, offset, targets, edgeCount, count);
+		System.arraycopy(weights, offset, this.weights, edgeCount, count);
+		edgeCount += count;
+	}
+
+	/**
+	 * Makes a WeightedGraph of the vertices and edges added so far. The builder
+	 * can go on being used afterwards; the graph does not change with it.
+	 *
+	 * @return a new graph
+	 */
+	public WeightedGraph<V> build() {
+		return new WeightedGraph<V>(this);
+	}
+
+	/**
+	 * Makes a GraphSnapshot of the vertices and edges added so far, without
+	 * building a WeightedGraph first. Each vertex's edges are listed in the
+	 * order they were first added.
+	 *
+	 * @return a frozen graph
+	 */
+	public GraphSnapshot<V> freeze() {
+		int vertexCount = vertexList.size();
+
+		// a stable counting sort on the source puts each vertex's edges together
+		int[] offsets = new int[vertexCount + 1];
+		for (int edge = 0; edge < edgeCount; edge++) {
+			offsets[sources[edge] + 1]++;
+		}
+		for (int i = 0; i < vertexCount; i++) {
+			offsets[i + 1] += offsets[i];
+		}
+		int[] sortedTargets = new int[edgeCount];
+		int[] sortedWeights = new int[edgeCount];
+		int[] next = Arrays.copyOf(offsets, vertexCount);
+		for (int edge = 0; edge < edgeCount; edge++) {
+			int position = next[sources[edge]]++;
+			sortedTargets[position] = targets[edge];
+			sortedWeights[position] = weights[edge];
+		}
+
+		/*
+		 * An edge added twice keeps its first position and its last weight.
+		 * seenFrom[t] is one more than the last vertex found with an edge to t,
+		 * and seenAt[t] is where that edge went.
+		 */
+		int[] seenFrom = new int[vertexCount];
+		int[] seenAt = new int[vertexCount];
+		int kept = 0;
+		for (int i = 0; i < vertexCount; i++) {
+			int start = offsets[i];
+			offsets[i] = kept;
+			for (int edge = start; edge < offsets[i + 1]; edge++) {
+				int target = sortedTargets[edge];
+				if (seenFrom[target] == i + 1) {
+					sortedWeights[seenAt[target]] = sortedWeights[edge];
+				} else {
+					seenFrom[target] = i + 1;
+					seenAt[target] = kept;
+					sortedTargets[kept] = target;
+					sortedWeights[kept] = sortedWeights[edge];
+					kept++;
+				}
+			}
+		}
+		offsets[vertexCount] = kept;
+		return GraphSnapshot.fromRows(new ArrayList<V>(vertexList), new HashMap<V, Integer>(vertexIndex), offsets,
+				Arrays.copyOf(sortedTargets, kept), Arrays.copyOf(sortedWeights, kept));
+	}
+
+	/*
+	 * The vertices and edges, for WeightedGraph to build itself from. The
+	 * arrays may be longer than getEdgeCount().
+	 */
+	List<V> vertices() {
+		return vertexList;
+	}
+
+	int[] sources() {
+		return sources;
+	}
+
+	int[] targets() {
+		return targets;
+	}
+
+	int[] weights() {
+		return weights;
+	}
+
+	/*
+	 * The initial capacity that lets a HashMap hold "size" entries without
+	 * rehashing. It is never below the default, so the map ends up with the
+	 * same table, and iterates in the same order, as one grown entry by entry.
+	 */
+	static int capacityFor(int size) {
+		return Math.max(16, (int) Math.ceil(size / 0.75));
+	}
+
+	private boolean isVertex(int index) {
+		return index >= 0 && index < vertexList.size();
+	}
+
+	private void ensureRoom(int count) {
+		if (count > sources.length - edgeCount) {
+			int length = Math.max(edgeCount + count, Math.max(16, 2 * sources.length));
+			sources = Arrays.copyOf(sources, length);
+			targets = Arrays.copyOf(targets, length);
+			weights = Arrays.copyOf(weights, length);
+		}
+	}
+}
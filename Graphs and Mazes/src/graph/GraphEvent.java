@@ -0,0 +1,124 @@
+package graph;
+
+import java.util.List;
+
+/**
+ * <P>
+ * One call a graph made to a GraphAlgorithmObserver, kept as an object so it
+ * can be queued and delivered later. AsyncObserver turns every notification
+ * into a GraphEvent and hands them to a GraphEventListener in batches.
+ * </P>
+ *
+ * @param <V> type of the vertices
+ */
+public final class GraphEvent<V> {
+
+	/**
+	 * Which GraphAlgorithmObserver method the event stands for.
+	 */
+	public enum Type {
+		DFS_BEGUN, BFS_BEGUN, VISIT, SEARCH_OVER, DIJKSTRA_BEGUN, DIJKSTRA_VERTEX_FINISHED, DIJKSTRA_OVER,
+		A_STAR_BEGUN, A_STAR_VERTEX_FINISHED, A_STAR_OVER
+	}
+
+	private final Type type;
+	private final V vertex;
+	private final Integer cost;
+	private final List<V> path;
+
+	GraphEvent(Type type, V vertex, Integer cost, List<V> path) {
+		this.type = type;
+		this.vertex = vertex;
+		this.cost = cost;
+		this.path = path;
+	}
+
+	/**
+	 * @return which observer method the event stands for
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * @return the vertex visited or finished, or null for other events
+	 */
+	public V getVertex() {
+		return vertex;
+	}
+
+	/**
+	 * @return the cost of the path to the finished vertex, or null for other
+	 *         events
+	 */
+	public Integer getCost() {
+		return cost;
+	}
+
+	/**
+	 * @return the path reported when Dijkstra's algorithm or A* is over, or null
+	 *         for other events
+	 */
+	public List<V> getPath() {
+		return path;
+	}
+
+	/**
+	 * @return true for an event that only reports progress (a vertex visited or
+	 *         finished), which a BackpressurePolicy may drop or coalesce; the
+	 *         events that begin and end a search are always delivered
+	 */
+	public boolean isProgress() {
+		return type == Type.VISIT || type == Type.DIJKSTRA_VERTEX_FINISHED || type == Type.A_STAR_VERTEX_FINISHED;
+	}
+
+	/**
+	 * Makes the call to the observer that this event stands for.
+	 *
+	 * @param observer observer to be notified
+	 */
+	public void deliverTo(GraphAlgorithmObserver<V> observer) {
+		switch (type) {
+		case DFS_BEGUN:
+			observer.notifyDFSHasBegun();
+			break;
+		case BFS_BEGUN:
+			observer.notifyBFSHasBegun();
+			break;
+		case VISIT:
+			observer.notifyVisit(vertex);
+			break;
+		case SEARCH_OVER:
+			observer.notifySearchIsOver();
+			break;
+		case DIJKSTRA_BEGUN:
+			observer.notifyDijkstraHasBegun();
+			break;
+		case DIJKSTRA_VERTEX_FINISHED:
+			observer.notifyDijkstraVertexFinished(vertex, cost);
+			break;
+		case DIJKSTRA_OVER:
+			observer.notifyDijkstraIsOver(path);
+			break;
+		case A_STAR_BEGUN:
+			observer.notifyAStarHasBegun();
+			break;
+		case A_STAR_VERTEX_FINISHED:
+			observer.notifyAStarVertexFinished(vertex, cost);
+			break;
+		case A_STAR_OVER:
+			observer.notifyAStarIsOver(path);
+			break;
+		}
+	}
+
+	public String toString() {
+		if (path != null) {
+			return type + " " + path;
+		}
+		if (vertex != null) {
+			return cost == null ? type + " " + vertex : type + " " + vertex + "=" + cost;
+		}
+		return type.toString();
+	}
+}
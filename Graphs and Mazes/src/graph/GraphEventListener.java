@@ -0,0 +1,20 @@
+package graph;
+
+import java.util.List;
+
+/**
+ * Receives the events of graph algorithms in batches from an AsyncObserver,
+ * on the AsyncObserver's own thread.
+ *
+ * @param <V> type of the vertices
+ */
+public interface GraphEventListener<V> {
+
+	/**
+	 * Called with the next events, oldest first. The list is only valid during
+	 * the call.
+	 *
+	 * @param events one or more events, in the order they happened
+	 */
+	public void notifyEvents(List<GraphEvent<V>> events);
+}
@@ -0,0 +1,199 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <P>
+ * An immutable copy of a graph, produced by WeightedGraph.freeze(),
+ * GraphBuilder.freeze() or copyOf. The edges are stored in compressed sparse
+ * row form: the edges leaving the vertex with index i are targets[offsets[i]]
+ * through targets[offsets[i + 1] - 1], with the matching weights in the same
+ * positions of the weights array. That
+ * costs 8 bytes per edge instead of a HashMap entry and a boxed Integer, and
+ * the neighbors of a vertex sit next to each other in memory. The edges
+ * entering each vertex are kept the same way in a second set of arrays, for
+ * searches that run backwards from a goal.
+ * </P>
+ *
+ * <P>
+ * The snapshot can perform the same algorithms as WeightedGraph, and notifies
+ * its own collection of GraphAlgorithmObservers in exactly the same way.
+ * </P>
+ *
+ * @param <V> type of the vertices
+ */
+public class GraphSnapshot<V> extends AbstractIndexedGraph<V> {
+
+	private final List<V> vertexList;
+	private final Map<V, Integer> vertexIndex;
+	private final int[] offsets;
+	private final int[] targets;
+	private final int[] weights;
+	private final int[] reverseOffsets;
+	private final int[] sources;
+	private final int[] reverseWeights;
+	private final int maxEdgeWeight;
+
+	/**
+	 * Compiles the current contents of any IndexedGraph into a snapshot. Vertices
+	 * keep their indices and every vertex's edges keep their order.
+	 *
+	 * @param graph graph to be copied
+	 * @return a frozen copy of the graph
+	 */
+	public static <V> GraphSnapshot<V> copyOf(IndexedGraph<V> graph) {
+		int vertexCount = graph.getVertexCount();
+		List<V> vertexList = new ArrayList<V>(vertexCount);
+		Map<V, Integer> vertexIndex = new HashMap<V, Integer>();
+		for (int i = 0; i < vertexCount; i++) {
+			vertexList.add(graph.getVertex(i));
+			vertexIndex.put(graph.getVertex(i), i);
+		}
+
+		// first pass counts the edges of each vertex, second pass copies them
+		EdgeBuffer edges = new EdgeBuffer();
+		int[] offsets = new int[vertexCount + 1];
+		for (int i = 0; i < vertexCount; i++) {
+			graph.getEdges(i, edges);
+			offsets[i + 1] = offsets[i] + edges.size();
+		}
+		int[] targets = new int[offsets[vertexCount]];
+		int[] weights = new int[offsets[vertexCount]];
+		for (int i = 0; i < vertexCount; i++) {
+			graph.getEdges(i, edges);
+			for (int j = 0; j < edges.size(); j++) {
+				targets[offsets[i] + j] = edges.getTarget(j);
+				weights[offsets[i] + j] = edges.getWeight(j);
+			}
+		}
+		return fromRows(vertexList, vertexIndex, offsets, targets, weights);
+	}
+
+	/*
+	 * A snapshot of the vertices and the edges leaving them, in compressed
+	 * sparse rows; works out the edges entering each vertex. The arguments are
+	 * owned by the snapshot from then on.
+	 */
+	static <V> GraphSnapshot<V> fromRows(List<V> vertexList, Map<V, Integer> vertexIndex, int[] offsets,
+			int[] targets, int[] weights) {
+		int vertexCount = vertexList.size();
+		int maxEdgeWeight = 0;
+		for (int edge = 0; edge < weights.length; edge++) {
+			maxEdgeWeight = Math.max(maxEdgeWeight, weights[edge]);
+		}
+
+		/*
+		 * The reverse arrays are the transpose of the forward ones, built by a
+		 * counting sort on the target, so the edges entering a vertex are listed
+		 * in order of the vertex they come from.
+		 */
+		int[] reverseOffsets = new int[vertexCount + 1];
+		for (int edge = 0; edge < targets.length; edge++) {
+			reverseOffsets[targets[edge] + 1]++;
+		}
+		for (int i = 0; i < vertexCount; i++) {
+			reverseOffsets[i + 1] += reverseOffsets[i];
+		}
+		int[] sources = new int[targets.length];
+		int[] reverseWeights = new int[targets.length];
+		int[] next = Arrays.copyOf(reverseOffsets, vertexCount);
+		for (int i = 0; i < vertexCount; i++) {
+			for (int edge = offsets[i]; edge < offsets[i + 1]; edge++) {
+				int position = next[targets[edge]]++;
+				sources[position] = i;
+				reverseWeights[position] = weights[edge];
+			}
+		}
+		return new GraphSnapshot<V>(vertexList, vertexIndex, offsets, targets, weights, reverseOffsets, sources,
+				reverseWeights, maxEdgeWeight);
+	}
+
+	/*
+	 * The arrays passed in are owned by the snapshot from then on.
+	 */
+	private GraphSnapshot(List<V> vertexList, Map<V, Integer> vertexIndex, int[] offsets, int[] targets, int[] weights,
+			int[] reverseOffsets, int[] sources, int[] reverseWeights, int maxEdgeWeight) {
+		this.vertexList = vertexList;
+		this.vertexIndex = vertexIndex;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		this.reverseOffsets = reverseOffsets;
+		this.sources = sources;
+		this.reverseWeights = reverseWeights;
+		this.maxEdgeWeight = maxEdgeWeight;
+	}
+
+	/**
+	 * Searches for a given vertex.
+	 *
+	 * @param vertex the vertex we are looking for
+	 * @return true if the vertex is in the graph, false otherwise.
+	 */
+	public boolean containsVertex(V vertex) {
+		return vertexIndex.containsKey(vertex);
+	}
+
+	/**
+	 * Returns weight of the edge connecting one vertex to another. Returns null if
+	 * the edge does not exist.
+	 *
+	 * @param from vertex where edge begins
+	 * @param to   vertex where edge terminates
+	 * @return weight of the edge, or null if there is no edge connecting these
+	 *         vertices
+	 * @throws IllegalArgumentException if either of the vertices specified are not
+	 *                                  in the graph.
+	 */
+	public Integer getWeight(V from, V to) {
+		int fromIndex = getIndex(from);
+		int toIndex = getIndex(to);
+		if (fromIndex == -1 || toIndex == -1) {
+			throw new IllegalArgumentException();
+		}
+		for (int edge = offsets[fromIndex]; edge < offsets[fromIndex + 1]; edge++) {
+			if (targets[edge] == toIndex) {
+				return weights[edge];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return number of edges in the snapshot
+	 */
+	public int getEdgeCount() {
+		return targets.length;
+	}
+
+	public int getVertexCount() {
+		return vertexList.size();
+	}
+
+	public V getVertex(int index) {
+		return vertexList.get(index);
+	}
+
+	public int getIndex(V vertex) {
+		Integer index = vertexIndex.get(vertex);
+		return index == null ? -1 : index;
+	}
+
+	public void getEdges(int from, EdgeBuffer edges) {
+		edges.clear();
+		edges.addAll(targets, weights, offsets[from], offsets[from + 1] - offsets[from]);
+	}
+
+	public void getReverseEdges(int to, EdgeBuffer edges) {
+		edges.clear();
+		edges.addAll(sources, reverseWeights, reverseOffsets[to], reverseOffsets[to + 1] - reverseOffsets[to]);
+	}
+
+	public int getMaxEdgeWeight() {
+		return maxEdgeWeight;
+	}
+}
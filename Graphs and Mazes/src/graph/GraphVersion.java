@@ -0,0 +1,233 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * <P>
+ * One version of a VersionedGraph: the vertices and edges exactly as they
+ * were after a particular change, frozen for good. A search that holds a
+ * GraphVersion sees that version and nothing else, however many changes are
+ * made to the graph meanwhile, and reads it without any locking. The version
+ * can perform the same algorithms as WeightedGraph, and reports to the
+ * observers of the graph it came from.
+ * </P>
+ *
+ * <P>
+ * Versions share everything a change did not touch. The vertices are split
+ * into segments of 64, each holding the edges of its vertices, and the
+ * segments are reached through directories of 64 segments each. A change
+ * copies only the segments holding the vertices it touches, the directories
+ * leading to them and the top-level array, and stamps each copy with the new
+ * version number. A version takes no memory of its own beyond those copies,
+ * and once nothing refers to it (no search holds it and it is no longer the
+ * newest) the garbage collector reclaims whatever it does not share with
+ * newer versions.
+ * </P>
+ *
+ * @param <V> type of the vertices
+ */
+public final class GraphVersion<V> extends AbstractIndexedGraph<V> {
+
+	static final int SEGMENT_BITS = 6;
+	static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+	static final int DIRECTORY_BITS = 6;
+	static final int DIRECTORY_SIZE = 1 << DIRECTORY_BITS;
+
+	private final long number;
+	private final Map<V, Integer> vertexIndex;
+	private final Directory[] directories;
+	private final int vertexCount;
+	private final int maxEdgeWeight;
+	private final int minEdgeWeight;
+
+	/*
+	 * vertexIndex is shared by every version of the graph and only ever grows;
+	 * a version ignores the vertices it maps to indices of vertexCount and up.
+	 */
+	GraphVersion(long number, Map<V, Integer> vertexIndex, Directory[] directories, int vertexCount,
+			int maxEdgeWeight, int minEdgeWeight, Collection<GraphAlgorithmObserver<V>> observers,
+			Collection<SearchStatsListener> statsListeners) {
+		super(observers, statsListeners);
+		this.number = number;
+		this.vertexIndex = vertexIndex;
+		this.directories = directories;
+		this.vertexCount = vertexCount;
+		this.maxEdgeWeight = maxEdgeWeight;
+		this.minEdgeWeight = minEdgeWeight;
+	}
+
+	/**
+	 * @return the version number; every change to the graph makes a version
+	 *         with a higher one
+	 */
+	public long getVersion() {
+		return number;
+	}
+
+	/**
+	 * Searches for a given vertex.
+	 *
+	 * @param vertex the vertex we are looking for
+	 * @return true if the vertex is in this version, false otherwise.
+	 */
+	public boolean containsVertex(V vertex) {
+		return getIndex(vertex) != -1;
+	}
+
+	/**
+	 * Returns weight of the edge connecting one vertex to another. Returns null if
+	 * the edge does not exist.
+	 *
+	 * @param from vertex where edge begins
+	 * @param to   vertex where edge terminates
+	 * @return weight of the edge, or null if there is no edge connecting these
+	 *         vertices
+	 * @throws IllegalArgumentException if either of the vertices specified are not
+	 *                                  in this version.
+	 */
+	public Integer getWeight(V from, V to) {
+		int source = getIndex(from);
+		int target = getIndex(to);
+		if (source == -1 || target == -1) {
+			throw new IllegalArgumentException();
+		}
+		Segment segment = segment(source);
+		int row = source & (SEGMENT_SIZE - 1);
+		int position = find(segment.targets[row], target);
+		return position == -1 ? null : segment.weights[row][position];
+	}
+
+	/**
+	 * Returns the smallest weight that had been given to any edge when this
+	 * version was made, or 0 if there were no edges.
+	 *
+	 * @return a lower bound on the weight of every edge in this version
+	 */
+	public int getMinEdgeWeight() {
+		return minEdgeWeight == Integer.MAX_VALUE ? 0 : minEdgeWeight;
+	}
+
+	/**
+	 * Compiles this version into a GraphSnapshot, whose flat arrays are faster
+	 * to search than the segments.
+	 *
+	 * @return a compact copy of this version
+	 */
+	public GraphSnapshot<V> freeze() {
+		return GraphSnapshot.copyOf(this);
+	}
+
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V getVertex(int index) {
+		if (index >= vertexCount) {
+			throw new IndexOutOfBoundsException();
+		}
+		return (V) segment(index).vertices[index & (SEGMENT_SIZE - 1)];
+	}
+
+	public int getIndex(V vertex) {
+		Integer index = vertexIndex.get(vertex);
+		return index == null || index >= vertexCount ? -1 : index;
+	}
+
+	public void getEdges(int from, EdgeBuffer edges) {
+		Segment segment = segment(from);
+		int row = from & (SEGMENT_SIZE - 1);
+		edges.clear();
+		edges.addAll(segment.targets[row], segment.weights[row], 0, segment.targets[row].length);
+	}
+
+	public void getReverseEdges(int to, EdgeBuffer edges) {
+		Segment segment = segment(to);
+		int row = to & (SEGMENT_SIZE - 1);
+		edges.clear();
+		edges.addAll(segment.sources[row], segment.reverseWeights[row], 0, segment.sources[row].length);
+	}
+
+	public int getMaxEdgeWeight() {
+		return maxEdgeWeight;
+	}
+
+	Directory[] directories() {
+		return directories;
+	}
+
+	// the smallest weight, or Integer.MAX_VALUE if there are no edges
+	int lowestWeight() {
+		return minEdgeWeight;
+	}
+
+	private Segment segment(int vertex) {
+		return directories[vertex >>> (SEGMENT_BITS + DIRECTORY_BITS)].segments[(vertex >>> SEGMENT_BITS)
+				& (DIRECTORY_SIZE - 1)];
+	}
+
+	// position of "target" in a row of targets, or -1
+	static int find(int[] targets, int target) {
+		for (int i = 0; i < targets.length; i++) {
+			if (targets[i] == target) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * DIRECTORY_SIZE segments. "stamp" is the number of the version that made
+	 * it: while that version is being built the directory may still be changed
+	 * in place, and after that never again.
+	 */
+	static final class Directory {
+		final long stamp;
+		final Segment[] segments;
+
+		Directory(long stamp, Segment[] segments) {
+			this.stamp = stamp;
+			this.segments = segments;
+		}
+
+		Directory copy(long newStamp) {
+			return new Directory(newStamp, Arrays.copyOf(segments, DIRECTORY_SIZE));
+		}
+	}
+
+	/*
+	 * SEGMENT_SIZE vertices and the edges leaving and entering each of them,
+	 * stamped like a Directory. The rows (one int array per vertex) are never
+	 * changed once made; a change puts a new row in the segment.
+	 */
+	static final class Segment {
+		final long stamp;
+		final Object[] vertices;
+		final int[][] targets;
+		final int[][] weights;
+		final int[][] sources;
+		final int[][] reverseWeights;
+
+		Segment(long stamp) {
+			this(stamp, new Object[SEGMENT_SIZE], new int[SEGMENT_SIZE][], new int[SEGMENT_SIZE][],
+					new int[SEGMENT_SIZE][], new int[SEGMENT_SIZE][]);
+		}
+
+		private Segment(long stamp, Object[] vertices, int[][] targets, int[][] weights, int[][] sources,
+				int[][] reverseWeights) {
+			this.stamp = stamp;
+			this.vertices = vertices;
+			this.targets = targets;
+			this.weights = weights;
+			this.sources = sources;
+			this.reverseWeights = reverseWeights;
+		}
+
+		Segment copy(long newStamp) {
+			return new Segment(newStamp, vertices.clone(), targets.clone(), weights.clone(), sources.clone(),
+					reverseWeights.clone());
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package graph;
+
+import maze.Juncture;
+
+/**
+ * <P>
+ * An estimate of the cost of the cheapest path from a vertex to a goal vertex,
+ * used to guide an A* search (see AbstractIndexedGraph.DoAStar). For A* to find
+ * a lowest-cost path the estimate must be "admissible": it may never be larger
+ * than the real cost. A heuristic that always returns 0 is admissible and
+ * makes A* behave like Dijkstra's algorithm.
+ * </P>
+ *
+ * @param <V> type of the vertices
+ */
+public interface Heuristic<V> {
+
+	/**
+	 * @param vertex vertex the remaining path starts from
+	 * @param goal   vertex the search is trying to reach
+	 * @return a non-negative estimate of the cost from vertex to goal
+	 */
+	public int estimate(V vertex, V goal);
+
+	/**
+	 * Returns the Manhattan-distance heuristic for junctures in a maze: the
+	 * number of steps from one juncture to the other if there were no walls,
+	 * times the smallest edge weight. Every path between the two needs at least
+	 * that many steps and each step costs at least minEdgeWeight, so the
+	 * estimate is admissible (and consistent).
+	 *
+	 * @param minEdgeWeight smallest weight of any edge in the maze
+	 * @return the Manhattan-distance heuristic
+	 * @throws IllegalArgumentException if minEdgeWeight is negative
+	 */
+	public static Heuristic<Juncture> manhattan(final int minEdgeWeight) {
+		if (minEdgeWeight < 0) {
+			throw new IllegalArgumentException();
+		}
+		return new Heuristic<Juncture>() {
+			public int estimate(Juncture vertex, Juncture goal) {
+				int steps = Math.abs(vertex.getX() - goal.getX()) + Math.abs(vertex.getY() - goal.getY());
+				return steps * minEdgeWeight;
+			}
+		};
+	}
+}
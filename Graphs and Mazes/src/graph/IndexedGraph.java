@@ -0,0 +1,59 @@
+package graph;
+
+/**
+ * <P>
+ * A read-only view of a directed, weighted graph whose vertices are numbered
+ * 0 through getVertexCount() - 1. The graph algorithms are written against
+ * this interface, so they run the same way on a WeightedGraph, on a frozen
+ * GraphSnapshot, or on any other representation, while keeping all of their
+ * own bookkeeping in arrays indexed by vertex number.
+ * </P>
+ *
+ * @param <V> type of the vertices
+ */
+public interface IndexedGraph<V> {
+
+	/**
+	 * @return number of vertices in the graph
+	 */
+	public int getVertexCount();
+
+	/**
+	 * @param index index of a vertex (0 to getVertexCount() - 1)
+	 * @return the vertex with that index
+	 */
+	public V getVertex(int index);
+
+	/**
+	 * @param vertex the vertex we are looking for
+	 * @return the index of the vertex, or -1 if it is not in the graph
+	 */
+	public int getIndex(V vertex);
+
+	/**
+	 * Clears "edges" and fills it with every edge leaving the vertex with the
+	 * given index. The edges always come out in the same order for the same
+	 * graph.
+	 * 
+	 * @param from  index of the vertex whose outgoing edges are wanted
+	 * @param edges buffer that receives the edges
+	 */
+	public void getEdges(int from, EdgeBuffer edges);
+
+	/**
+	 * Clears "edges" and fills it with every edge entering the vertex with the
+	 * given index. In the buffer, the "target" of each edge is the vertex the
+	 * edge comes from. Searches that run backwards from a goal (such as
+	 * bidirectional Dijkstra) use this.
+	 * 
+	 * @param to    index of the vertex whose incoming edges are wanted
+	 * @param edges buffer that receives the edges
+	 */
+	public void getReverseEdges(int to, EdgeBuffer edges);
+
+	/**
+	 * @return an upper bound on the weight of every edge in the graph (0 if there
+	 *         are no edges)
+	 */
+	public int getMaxEdgeWeight();
+}
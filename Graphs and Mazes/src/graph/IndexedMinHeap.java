@@ -0,0 +1,191 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * <P>
+ * A binary min-heap of vertex indices (the integers 0 through capacity - 1),
+ * each stored together with an integer key. The heap remembers where every
+ * index currently sits, so the key of an index that is already in the heap can
+ * be lowered in O(log n) time ("decrease-key"). This is exactly what Dijkstra's
+ * algorithm needs each time it finds a cheaper path to a vertex.
+ * </P>
+ *
+ * <P>
+ * When two indices have the same key, the smaller index is removed first, so
+ * the order in which indices leave the heap is always the same for the same
+ * sequence of operations.
+ * </P>
+ */
+class IndexedMinHeap implements IndexedPriorityQueue {
+
+	private int[] heap; // heap[i] is the index stored at heap position i
+	private int[] position; // position[index] is where index sits, or -1
+	private int[] keys; // keys[index] is the current key of index
+	private int size;
+
+	/**
+	 * Creates an empty heap that can hold the indices 0 through capacity - 1.
+	 *
+	 * @param capacity number of distinct indices the heap can hold
+	 */
+	public IndexedMinHeap(int capacity) {
+		heap = new int[capacity];
+		position = new int[capacity];
+		keys = new int[capacity];
+		Arrays.fill(position, -1);
+	}
+
+	/**
+	 * @return true if there are no indices in the heap
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @param index the index we are looking for
+	 * @return true if the index is currently in the heap
+	 */
+	public boolean contains(int index) {
+		return position[index] != -1;
+	}
+
+	/**
+	 * @param index an index that is currently in the heap
+	 * @return the key of the index
+	 * @throws IllegalArgumentException if the index is not in the heap
+	 */
+	public int getKey(int index) {
+		if (!contains(index)) {
+			throw new IllegalArgumentException();
+		}
+		return keys[index];
+	}
+
+	/**
+	 * Adds an index to the heap with the given key. Throws an
+	 * IllegalArgumentException if the index is already in the heap.
+	 *
+	 * @param index index to be added
+	 * @param key   key of the index
+	 * @throws IllegalArgumentException if the index is already in the heap
+	 */
+	public void add(int index, int key) {
+		if (contains(index)) {
+			throw new IllegalArgumentException();
+		}
+		keys[index] = key;
+		heap[size] = index;
+		position[index] = size;
+		size++;
+		siftUp(size - 1);
+	}
+
+	/**
+	 * Lowers the key of an index that is already in the heap. Throws an
+	 * IllegalArgumentException if the index is not in the heap or the new key is
+	 * larger than its current key.
+	 *
+	 * @param index index whose key is lowered
+	 * @param key   the new (smaller or equal) key
+	 * @throws IllegalArgumentException if the index is not in the heap, or the key
+	 *                                  would increase
+	 */
+	public void decreaseKey(int index, int key) {
+		if (!contains(index) || key > keys[index]) {
+			throw new IllegalArgumentException();
+		}
+		keys[index] = key;
+		siftUp(position[index]);
+	}
+
+	/**
+	 * Returns the index with the smallest key without removing it.
+	 *
+	 * @return the index with the smallest key
+	 * @throws IllegalStateException if the heap is empty
+	 */
+	public int peek() {
+		if (size == 0) {
+			throw new IllegalStateException();
+		}
+		return heap[0];
+	}
+
+	/**
+	 * Removes the index with the smallest key from the heap and returns it.
+	 *
+	 * @return the index with the smallest key
+	 * @throws IllegalStateException if the heap is empty
+	 */
+	public int poll() {
+		if (size == 0) {
+			throw new IllegalStateException();
+		}
+		int smallest = heap[0];
+		size--;
+		if (size > 0) {
+			// move the last index to the top and let it sink into place
+			heap[0] = heap[size];
+			position[heap[0]] = 0;
+			siftDown(0);
+		}
+		position[smallest] = -1;
+		return smallest;
+	}
+
+	/**
+	 * Removes every index from the heap.
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			position[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	// true if the index at heap position a belongs above the one at position b
+	private boolean less(int a, int b) {
+		int keyA = keys[heap[a]];
+		int keyB = keys[heap[b]];
+		return keyA < keyB || (keyA == keyB && heap[a] < heap[b]);
+	}
+
+	private void siftUp(int i) {
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (!less(i, parent)) {
+				return;
+			}
+			swap(i, parent);
+			i = parent;
+		}
+	}
+
+	private void siftDown(int i) {
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) {
+				return;
+			}
+			// pick the smaller of the two children
+			if (child + 1 < size && less(child + 1, child)) {
+				child++;
+			}
+			if (!less(child, i)) {
+				return;
+			}
+			swap(i, child);
+			i = child;
+		}
+	}
+
+	private void swap(int a, int b) {
+		int temp = heap[a];
+		heap[a] = heap[b];
+		heap[b] = temp;
+		position[heap[a]] = a;
+		position[heap[b]] = b;
+	}
+}
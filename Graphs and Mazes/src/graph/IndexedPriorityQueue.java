@@ -0,0 +1,55 @@
+package graph;
+
+/**
+ * <P>
+ * A priority queue of vertex indices (the integers 0 through capacity - 1),
+ * each stored with an integer key, that supports lowering the key of an index
+ * already in the queue. Dijkstra's algorithm in WeightedGraph can run on any
+ * implementation; see ShortestPathEngine for the ones available.
+ * </P>
+ */
+interface IndexedPriorityQueue {
+
+	/**
+	 * @return true if there are no indices in the queue
+	 */
+	public boolean isEmpty();
+
+	/**
+	 * @param index the index we are looking for
+	 * @return true if the index is currently in the queue
+	 */
+	public boolean contains(int index);
+
+	/**
+	 * Adds an index to the queue with the given key.
+	 * 
+	 * @param index index to be added
+	 * @param key   key of the index
+	 * @throws IllegalArgumentException if the index is already in the queue
+	 */
+	public void add(int index, int key);
+
+	/**
+	 * Lowers the key of an index that is already in the queue.
+	 * 
+	 * @param index index whose key is lowered
+	 * @param key   the new (smaller or equal) key
+	 * @throws IllegalArgumentException if the index is not in the queue, or the
+	 *                                  key would increase
+	 */
+	public void decreaseKey(int index, int key);
+
+	/**
+	 * Removes an index with the smallest key from the queue and returns it.
+	 * 
+	 * @return an index with the smallest key
+	 * @throws IllegalStateException if the queue is empty
+	 */
+	public int poll();
+
+	/**
+	 * Removes every index from the queue.
+	 */
+	public void clear();
+}
@@ -0,0 +1,180 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * <P>
+ * A hash map from non-negative int keys to int values that stores its entries
+ * directly in two int arrays (open addressing with linear probing). Nothing is
+ * boxed, and looking up, replacing or walking over entries never creates an
+ * object; only growing or shrinking the table does.
+ * </P>
+ *
+ * <P>
+ * Entries are walked by slot: for every slot from 0 to capacity() - 1 where
+ * keyAt(slot) is not EMPTY, valueAt(slot) holds that key's value.
+ * </P>
+ */
+final class IntIntHashMap {
+
+	/**
+	 * Marks an unused slot. Keys must never be negative.
+	 */
+	static final int EMPTY = -1;
+
+	private int[] keys;
+	private int[] values;
+	private int size;
+
+	/**
+	 * Creates an empty map with room for a few entries.
+	 */
+	IntIntHashMap() {
+		keys = new int[4];
+		values = new int[4];
+		Arrays.fill(keys, EMPTY);
+	}
+
+	/**
+	 * @return number of entries in the map
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @param key     key to look up (non-negative)
+	 * @param missing value returned if the key is not in the map
+	 * @return the value stored for the key, or "missing"
+	 */
+	int get(int key, int missing) {
+		int slot = find(keys, key);
+		return keys[slot] == EMPTY ? missing : values[slot];
+	}
+
+	/**
+	 * @param key key to look up (non-negative)
+	 * @return true if the key is in the map
+	 */
+	boolean containsKey(int key) {
+		return keys[find(keys, key)] != EMPTY;
+	}
+
+	/**
+	 * Stores a value for a key, replacing any value already stored for it.
+	 *
+	 * @param key   the key (non-negative)
+	 * @param value the value
+	 * @return true if the key was not in the map before
+	 */
+	boolean put(int key, int value) {
+		int slot = find(keys, key);
+		if (keys[slot] != EMPTY) {
+			values[slot] = value;
+			return false;
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		size++;
+		// keep the table at most half full so probe sequences stay short
+		if (2 * size > keys.length) {
+			resize(2 * keys.length);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes a key and its value. The table shrinks when it becomes mostly
+	 * empty, so walking over the slots stays proportional to the number of
+	 * entries.
+	 *
+	 * @param key the key (non-negative)
+	 * @return true if the key was in the map
+	 */
+	boolean remove(int key) {
+		int mask = keys.length - 1;
+		int slot = find(keys, key);
+		if (keys[slot] == EMPTY) {
+			return false;
+		}
+		size--;
+		/*
+		 * Shift later keys of the same probe run back into the hole, unless their
+		 * home slot lies between the hole and where they are now (they would no
+		 * longer be found).
+		 */
+		int next = slot;
+		while (true) {
+			next = (next + 1) & mask;
+			if (keys[next] == EMPTY) {
+				break;
+			}
+			int home = home(keys[next], mask);
+			boolean between = slot <= next ? slot < home && home <= next : slot < home || home <= next;
+			if (!between) {
+				keys[slot] = keys[next];
+				values[slot] = values[next];
+				slot = next;
+			}
+		}
+		keys[slot] = EMPTY;
+		if (keys.length > 4 && 8 * size < keys.length) {
+			resize(keys.length / 2);
+		}
+		return true;
+	}
+
+	/**
+	 * @return number of slots in the table
+	 */
+	int capacity() {
+		return keys.length;
+	}
+
+	/**
+	 * @param slot a slot of the table (0 to capacity() - 1)
+	 * @return the key in that slot, or EMPTY
+	 */
+	int keyAt(int slot) {
+		return keys[slot];
+	}
+
+	/**
+	 * @param slot a slot of the table whose key is not EMPTY
+	 * @return the value in that slot
+	 */
+	int valueAt(int slot) {
+		return values[slot];
+	}
+
+	private void resize(int capacity) {
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new int[capacity];
+		values = new int[capacity];
+		Arrays.fill(keys, EMPTY);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				int slot = find(keys, oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	// slot where a probe for the key starts
+	private static int home(int key, int mask) {
+		int hash = key * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	// slot holding the key, or the empty slot where it would go
+	private static int find(int[] table, int key) {
+		int mask = table.length - 1;
+		int slot = home(key, mask);
+		while (table[slot] != EMPTY && table[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+}
@@ -0,0 +1,242 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import maze.Juncture;
+import maze.Maze;
+
+/**
+ * <P>
+ * Jump Point Search for paths with the fewest steps in a Maze, reading the
+ * walls straight from the Maze. See MazeGridGraph.DoJumpPointSearch.
+ * </P>
+ *
+ * <P>
+ * Many paths with the fewest steps differ only in where they turn. The search
+ * only follows "canonical" ones, which never turn from a horizontal step into
+ * a vertical one if the vertical step could have been taken one juncture
+ * earlier; every pair of junctures that is connected has a canonical path with
+ * the fewest steps. So a horizontal run only has to stop where a wall forces a
+ * turn (a "jump point"), and a vertical run only has to stop where one of the
+ * horizontal runs leaving it finds a jump point. Only jump points go on the
+ * queue, and the junctures between them are filled in afterwards.
+ * </P>
+ */
+final class JumpPointSearch {
+
+	// the four directions, as bits of a mask
+	private static final int RIGHT = 1;
+	private static final int LEFT = 2;
+	private static final int DOWN = 4;
+	private static final int UP = 8;
+	private static final int ALL = RIGHT | LEFT | DOWN | UP;
+
+	private final Maze maze;
+	private final int width;
+	private final int height;
+	private final int goal;
+	private final int goalX;
+	private final int goalY;
+
+	/*
+	 * steps[i] is -1 until juncture i is reached. arrival[i] holds every
+	 * direction juncture i has been reached in with steps[i] steps, and
+	 * pending[i] the ones it has not been expanded for yet.
+	 */
+	private final int[] steps;
+	private final int[] predecessor;
+	private final byte[] arrival;
+	private final byte[] pending;
+	private final IndexedMinHeap open;
+
+	private JumpPointSearch(Maze maze, int goal) {
+		this.maze = maze;
+		this.width = maze.getMazeWidth();
+		this.height = maze.getMazeHeight();
+		this.goal = goal;
+		this.goalX = goal % width;
+		this.goalY = goal / width;
+		int count = width * height;
+		steps = new int[count];
+		Arrays.fill(steps, -1);
+		predecessor = new int[count];
+		arrival = new byte[count];
+		pending = new byte[count];
+		open = new IndexedMinHeap(count);
+	}
+
+	/**
+	 * Finds a path with the fewest steps between two junctures of a maze.
+	 *
+	 * @param maze  maze to be searched
+	 * @param first index (y * width + x) of the juncture where the path begins
+	 * @param goal  index of the juncture where the path ends
+	 * @return the junctures on the path, from first to goal, or an empty list if
+	 *         goal cannot be reached
+	 */
+	static List<Juncture> findPath(Maze maze, int first, int goal) {
+		return new JumpPointSearch(maze, goal).search(first);
+	}
+
+	private List<Juncture> search(int first) {
+		steps[first] = 0;
+		predecessor[first] = -1;
+		pending[first] = ALL;
+		arrival[first] = ALL;
+		open.add(first, estimate(first));
+		while (!open.isEmpty()) {
+			int next = open.poll();
+			if (next == goal) {
+				return path();
+			}
+			int directions = pending[next];
+			pending[next] = 0;
+			int x = next % width;
+			int y = next / width;
+
+			// the runs to follow, for each direction the juncture was reached in
+			int runs = 0;
+			if (next == first) {
+				runs = ALL;
+			}
+			if ((directions & (DOWN | UP)) != 0) {
+				runs |= RIGHT | LEFT | (directions & (DOWN | UP));
+			}
+			if (next != first && (directions & RIGHT) != 0) {
+				runs |= RIGHT | forced(x, y, 1);
+			}
+			if (next != first && (directions & LEFT) != 0) {
+				runs |= LEFT | forced(x, y, -1);
+			}
+			if ((runs & RIGHT) != 0) {
+				reach(jumpHorizontally(x, y, 1), next, RIGHT);
+			}
+			if ((runs & LEFT) != 0) {
+				reach(jumpHorizontally(x, y, -1), next, LEFT);
+			}
+			if ((runs & DOWN) != 0) {
+				reach(jumpVertically(x, y, 1), next, DOWN);
+			}
+			if ((runs & UP) != 0) {
+				reach(jumpVertically(x, y, -1), next, UP);
+			}
+		}
+		return new ArrayList<Juncture>();
+	}
+
+	/*
+	 * Runs from (x, y) in direction dx until a wall, the goal, or a juncture
+	 * with a forced turn. Returns that juncture, or -1 at a wall.
+	 */
+	private int jumpHorizontally(int x, int y, int dx) {
+		while (isOpen(x, y, dx, 0)) {
+			x += dx;
+			if ((x == goalX && y == goalY) || forced(x, y, dx) != 0) {
+				return y * width + x;
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * Runs from (x, y) in direction dy until a wall, the goal, or a juncture
+	 * where a horizontal run finds a jump point. Returns that juncture, or -1 at
+	 * a wall.
+	 */
+	private int jumpVertically(int x, int y, int dy) {
+		while (isOpen(x, y, 0, dy)) {
+			y += dy;
+			if ((x == goalX && y == goalY) || jumpHorizontally(x, y, 1) != -1
+					|| jumpHorizontally(x, y, -1) != -1) {
+				return y * width + x;
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * The vertical directions a path arriving at (x, y) with a step in direction
+	 * dx must turn into here, because the same turn one juncture earlier is
+	 * blocked.
+	 */
+	private int forced(int x, int y, int dx) {
+		int turns = 0;
+		if (isOpen(x, y, 0, 1) && !(isOpen(x - dx, y, 0, 1) && isOpen(x - dx, y + 1, dx, 0))) {
+			turns |= DOWN;
+		}
+		if (isOpen(x, y, 0, -1) && !(isOpen(x - dx, y, 0, -1) && isOpen(x - dx, y - 1, dx, 0))) {
+			turns |= UP;
+		}
+		return turns;
+	}
+
+	// true if there is no wall between (x, y) and the juncture one step away
+	private boolean isOpen(int x, int y, int dx, int dy) {
+		if (dx == 1) {
+			return x + 1 < width && !maze.isWallToRight(x, y);
+		}
+		if (dx == -1) {
+			return x > 0 && !maze.isWallToLeft(x, y);
+		}
+		if (dy == 1) {
+			return y + 1 < height && !maze.isWallBelow(x, y);
+		}
+		return y > 0 && !maze.isWallAbove(x, y);
+	}
+
+	/*
+	 * Records the jump point "to", reached in a straight line from "from". A
+	 * juncture reached again with the same number of steps from a new direction
+	 * is expanded again for that direction, since which runs are followed
+	 * depends on it.
+	 */
+	private void reach(int to, int from, int direction) {
+		if (to == -1) {
+			return;
+		}
+		int newSteps = steps[from] + Math.abs(to % width - from % width) + Math.abs(to / width - from / width);
+		if (steps[to] == -1 || newSteps < steps[to]) {
+			steps[to] = newSteps;
+			predecessor[to] = from;
+			arrival[to] = (byte) direction;
+			pending[to] = (byte) direction;
+		} else if (newSteps == steps[to] && (arrival[to] & direction) == 0) {
+			arrival[to] |= direction;
+			pending[to] |= direction;
+		} else {
+			return;
+		}
+		if (open.contains(to)) {
+			open.decreaseKey(to, newSteps + estimate(to));
+		} else {
+			open.add(to, newSteps + estimate(to));
+		}
+	}
+
+	// the Manhattan distance to the goal, which no path can beat
+	private int estimate(int cell) {
+		return Math.abs(cell % width - goalX) + Math.abs(cell / width - goalY);
+	}
+
+	// fills in the junctures along the straight runs between the jump points
+	private List<Juncture> path() {
+		ArrayList<Juncture> path = new ArrayList<Juncture>();
+		path.add(new Juncture(goalX, goalY));
+		for (int curr = goal; predecessor[curr] != -1; curr = predecessor[curr]) {
+			int x = curr % width;
+			int y = curr / width;
+			int fromX = predecessor[curr] % width;
+			int fromY = predecessor[curr] / width;
+			while (x != fromX || y != fromY) {
+				x -= Integer.signum(x - fromX);
+				y -= Integer.signum(y - fromY);
+				path.add(new Juncture(x, y));
+			}
+		}
+		Collections.reverse(path);
+		return path;
+	}
+}
@@ -0,0 +1,27 @@
+package graph;
+
+/**
+ * <P>
+ * Selects how Landmarks.select picks its landmark vertices. Landmarks give the
+ * best estimates for searches that head away from them, so good landmarks sit
+ * at the edges of the graph, spread out in different directions.
+ * </P>
+ */
+public enum LandmarkSelection {
+
+	/**
+	 * Each landmark is the vertex farthest from the landmarks already chosen
+	 * (the first is the vertex farthest from a random vertex). Cheap, and good at
+	 * finding the "corners" of the graph.
+	 */
+	FARTHEST,
+
+	/**
+	 * The "avoid" method: grows a shortest-path tree from a random vertex and
+	 * walks down to a leaf of the subtree whose vertices the current landmarks
+	 * estimate worst. Each new landmark covers the region the others serve
+	 * least, which usually gives better estimates than FARTHEST for the same
+	 * number of landmarks, at the cost of one extra search per landmark.
+	 */
+	AVOID;
+}
@@ -0,0 +1,294 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+/**
+ * <P>
+ * A Heuristic for any graph, built from "landmarks": a few vertices whose
+ * lowest costs to and from every other vertex are computed in advance. By the
+ * triangle inequality, the cost of getting from v to a goal t is at least
+ * cost(L, t) - cost(L, v) and at least cost(v, L) - cost(t, L) for every
+ * landmark L, so the largest of these is an admissible (and consistent)
+ * estimate. Passing the landmarks to DoAStar gives a goal-directed search
+ * (called ALT) that needs no coordinates or other knowledge of the vertices.
+ * </P>
+ *
+ * <P>
+ * The costs are kept in two flat int arrays with the entries of one vertex
+ * next to each other, so an estimate reads two short runs of memory. The
+ * tables take 8 bytes per vertex per landmark, and are computed in parallel
+ * on the common ForkJoinPool.
+ * </P>
+ *
+ * <P>
+ * The landmarks describe the graph as it was when they were selected: after
+ * the graph changes they must be selected again, because the estimates may no
+ * longer be admissible. Vertices added later are estimated at 0.
+ * </P>
+ *
+ * @param <V> type of the vertices
+ */
+public final class Landmarks<V> implements Heuristic<V> {
+
+	private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	private final IndexedGraph<V> graph;
+	private final int vertexCount;
+	private final int[] landmarks;
+
+	/*
+	 * fromLandmark[v * count + i] is the cost of the cheapest path from landmark
+	 * i to v, and toLandmark[v * count + i] the cost from v to landmark i
+	 * (UNREACHABLE if there is no path).
+	 */
+	private final int[] fromLandmark;
+	private final int[] toLandmark;
+
+	/**
+	 * Selects landmarks in a graph and computes their cost tables. The graph
+	 * must not change while this runs.
+	 *
+	 * @param graph     graph the landmarks are for
+	 * @param count     number of landmarks (at most the number of vertices is
+	 *                  used)
+	 * @param selection how the landmarks are picked
+	 * @param seed      seed for the random choices, so the same graph and seed
+	 *                  always give the same landmarks
+	 * @return landmarks for the graph, to be used as a Heuristic
+	 * @throws IllegalArgumentException if count is less than 1
+	 */
+	public static <V> Landmarks<V> select(IndexedGraph<V> graph, int count, LandmarkSelection selection,
+			long seed) {
+		if (count < 1) {
+			throw new IllegalArgumentException();
+		}
+		int vertexCount = graph.getVertexCount();
+		count = Math.min(count, vertexCount);
+		Random random = new Random(seed);
+		int[] landmarks = new int[count];
+		int[][] from = new int[count][];
+		int[][] to = new int[count][];
+
+		if (count == 0) {
+			// an empty graph has no landmarks; every estimate is 0
+		} else if (selection == LandmarkSelection.FARTHEST) {
+			// "nearest" is the cost from the closest landmark chosen so far
+			int[] nearest = new int[vertexCount];
+			BitSet chosen = new BitSet(vertexCount);
+			GraphAlgorithms.distances(graph, random.nextInt(vertexCount), false, nearest, new int[vertexCount], null);
+			for (int i = 0; i < count; i++) {
+				landmarks[i] = farthest(nearest, chosen);
+				chosen.set(landmarks[i]);
+				from[i] = new int[vertexCount];
+				GraphAlgorithms.distances(graph, landmarks[i], false, from[i], new int[vertexCount], null);
+				for (int v = 0; v < vertexCount; v++) {
+					nearest[v] = i == 0 ? from[i][v] : Math.min(nearest[v], from[i][v]);
+				}
+			}
+			computeTables(graph, landmarks, 0, count, null, to);
+		} else {
+			for (int i = 0; i < count; i++) {
+				landmarks[i] = avoid(graph, random, landmarks, i, from, to);
+				computeTables(graph, landmarks, i, i + 1, from, to);
+			}
+		}
+
+		// interleave the tables so each vertex's entries sit together
+		int[] fromLandmark = new int[vertexCount * count];
+		int[] toLandmark = new int[vertexCount * count];
+		for (int v = 0; v < vertexCount; v++) {
+			for (int i = 0; i < count; i++) {
+				fromLandmark[v * count + i] = from[i][v];
+				toLandmark[v * count + i] = to[i][v];
+			}
+		}
+		return new Landmarks<V>(graph, vertexCount, landmarks, fromLandmark, toLandmark);
+	}
+
+	private Landmarks(IndexedGraph<V> graph, int vertexCount, int[] landmarks, int[] fromLandmark,
+			int[] toLandmark) {
+		this.graph = graph;
+		this.vertexCount = vertexCount;
+		this.landmarks = landmarks;
+		this.fromLandmark = fromLandmark;
+		this.toLandmark = toLandmark;
+	}
+
+	/**
+	 * @return the landmark vertices, in the order they were selected
+	 */
+	public List<V> getLandmarks() {
+		List<V> list = new ArrayList<V>();
+		for (int landmark : landmarks) {
+			list.add(graph.getVertex(landmark));
+		}
+		return list;
+	}
+
+	/**
+	 * Returns the largest lower bound on the cost from vertex to goal that the
+	 * landmarks give, or 0 if either vertex is unknown to the landmarks.
+	 */
+	public int estimate(V vertex, V goal) {
+		int v = graph.getIndex(vertex);
+		int t = graph.getIndex(goal);
+		if (v == -1 || t == -1 || v >= vertexCount || t >= vertexCount) {
+			return 0;
+		}
+		int count = landmarks.length;
+		int best = 0;
+		for (int i = 0; i < count; i++) {
+			best = Math.max(best, bound(fromLandmark[v * count + i], fromLandmark[t * count + i],
+					toLandmark[v * count + i], toLandmark[t * count + i]));
+		}
+		return best;
+	}
+
+	/*
+	 * The lower bound one landmark L gives on cost(v, t), from cost(L, v),
+	 * cost(L, t), cost(v, L) and cost(t, L). A bound that involves an
+	 * unreachable pair is skipped.
+	 */
+	private static int bound(int fromV, int fromT, int toV, int toT) {
+		int best = 0;
+		if (fromV != UNREACHABLE && fromT != UNREACHABLE) {
+			best = Math.max(best, fromT - fromV);
+		}
+		if (toV != UNREACHABLE && toT != UNREACHABLE) {
+			best = Math.max(best, toV - toT);
+		}
+		return best;
+	}
+
+	// the vertex not yet chosen with the largest cost (unreachable counts most)
+	private static int farthest(int[] cost, BitSet chosen) {
+		int farthest = -1;
+		for (int v = 0; v < cost.length; v++) {
+			if (!chosen.get(v) && (farthest == -1 || cost[v] > cost[farthest])) {
+				farthest = v;
+			}
+		}
+		return farthest;
+	}
+
+	/*
+	 * Picks the next landmark by the "avoid" method. A shortest-path tree is
+	 * grown from a random root; each vertex is weighted by how much the
+	 * existing landmarks underestimate its cost from the root, and each subtree
+	 * by the total weight in it (or 0 if it already holds a landmark). The new
+	 * landmark is the leaf reached by always stepping into the heaviest subtree.
+	 */
+	private static int avoid(IndexedGraph<?> graph, Random random, int[] landmarks, int chosen, int[][] from,
+			int[][] to) {
+		int vertexCount = graph.getVertexCount();
+		int root = random.nextInt(vertexCount);
+		int[] cost = new int[vertexCount];
+		int[] predecessor = new int[vertexCount];
+		int[] order = new int[vertexCount];
+		int reached = GraphAlgorithms.distances(graph, root, false, cost, predecessor, order);
+
+		BitSet isLandmark = new BitSet(vertexCount);
+		for (int i = 0; i < chosen; i++) {
+			isLandmark.set(landmarks[i]);
+		}
+		BitSet holdsLandmark = new BitSet(vertexCount);
+		long[] size = new long[vertexCount];
+		// children are finished after their parents, so sum in reverse order
+		for (int k = reached - 1; k >= 0; k--) {
+			int v = order[k];
+			int bound = 0;
+			for (int i = 0; i < chosen; i++) {
+				bound = Math.max(bound, bound(from[i][root], from[i][v], to[i][root], to[i][v]));
+			}
+			size[v] += cost[v] - bound;
+			if (isLandmark.get(v)) {
+				holdsLandmark.set(v);
+			}
+			if (predecessor[v] != -1) {
+				size[predecessor[v]] += size[v];
+				if (holdsLandmark.get(v)) {
+					holdsLandmark.set(predecessor[v]);
+				}
+			}
+		}
+
+		// the children of each vertex, in compressed sparse rows
+		int[] childOffsets = new int[vertexCount + 1];
+		for (int k = 0; k < reached; k++) {
+			if (predecessor[order[k]] != -1) {
+				childOffsets[predecessor[order[k]] + 1]++;
+			}
+		}
+		for (int v = 0; v < vertexCount; v++) {
+			childOffsets[v + 1] += childOffsets[v];
+		}
+		int[] children = new int[childOffsets[vertexCount]];
+		int[] next = Arrays.copyOf(childOffsets, vertexCount);
+		for (int k = 0; k < reached; k++) {
+			if (predecessor[order[k]] != -1) {
+				children[next[predecessor[order[k]]]++] = order[k];
+			}
+		}
+
+		int landmark = root;
+		while (true) {
+			int heaviest = -1;
+			for (int c = childOffsets[landmark]; c < childOffsets[landmark + 1]; c++) {
+				int child = children[c];
+				if (!holdsLandmark.get(child) && size[child] > 0
+						&& (heaviest == -1 || size[child] > size[heaviest])) {
+					heaviest = child;
+				}
+			}
+			if (heaviest == -1) {
+				break;
+			}
+			landmark = heaviest;
+		}
+
+		// every subtree already holds a landmark; take any vertex that is not one
+		while (isLandmark.get(landmark)) {
+			landmark = random.nextInt(vertexCount);
+		}
+		return landmark;
+	}
+
+	/*
+	 * Computes the cost tables of landmarks[first] through landmarks[last - 1],
+	 * one search per table, all in parallel. A null "from" or "to" means those
+	 * tables are not wanted.
+	 */
+	private static void computeTables(final IndexedGraph<?> graph, int[] landmarks, int first, int last,
+			final int[][] from, final int[][] to) {
+		final int vertexCount = graph.getVertexCount();
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int i = first; i < last; i++) {
+			final int index = i;
+			final int landmark = landmarks[i];
+			if (from != null) {
+				tasks.add(new Callable<Void>() {
+					public Void call() {
+						from[index] = new int[vertexCount];
+						GraphAlgorithms.distances(graph, landmark, false, from[index], new int[vertexCount], null);
+						return null;
+					}
+				});
+			}
+			if (to != null) {
+				tasks.add(new Callable<Void>() {
+					public Void call() {
+						to[index] = new int[vertexCount];
+						GraphAlgorithms.distances(graph, landmark, true, to[index], new int[vertexCount], null);
+						return null;
+					}
+				});
+			}
+		}
+		ParallelTasks.invokeAll(tasks);
+	}
+}
@@ -24,40 +24,72 @@ public class MazeGraph extends WeightedGraph<Juncture> {
 	 */
 	public MazeGraph(Maze maze) {
 
-		super();
-		
-		for (int x = 0; x < maze.getMazeWidth(); x++) {
+		super(junctures(maze));
+	}
+
+	/*
+	 * Collects the junctures and passages of the maze in a GraphBuilder, column
+	 * by column, with the edges of each juncture in the order up, down, left,
+	 * right. Juncture (x, y) gets index x * height + y.
+	 */
+	private static GraphBuilder<Juncture> junctures(Maze maze) {
+		int width = maze.getMazeWidth();
+		int height = maze.getMazeHeight();
+		GraphBuilder<Juncture> builder = new GraphBuilder<Juncture>(width * height, 4 * width * height);
 
-			for (int y = 0; y < maze.getMazeHeight(); y++) {
+		for (int x = 0; x < width; x++) {
 
-				this.addVertex(new Juncture(x, y));
+			for (int y = 0; y < height; y++) {
+
+				builder.addVertex(new Juncture(x, y));
 			}
 		}
 
-		for (int x = 0; x < maze.getMazeWidth(); x++) {
-			for (int y = 0; y < maze.getMazeHeight(); y++) {
-				Juncture curr = new Juncture(x, y);
-				Juncture up = new Juncture(x, y - 1);
-				Juncture down = new Juncture(x, y + 1);
-				Juncture left = new Juncture(x - 1, y);
-				Juncture right = new Juncture(x + 1, y);
+		// one column at a time, at most 4 edges per juncture
+		int[] from = new int[4 * height];
+		int[] to = new int[4 * height];
+		int[] weights = new int[4 * height];
+		for (int x = 0; x < width; x++) {
+			int count = 0;
+			for (int y = 0; y < height; y++) {
+				int curr = x * height + y;
 
-				if (!maze.isWallAbove(curr) && this.containsVertex(up)) {
-					this.addEdge(curr, up, maze.getWeightAbove(curr));
+				if (!maze.isWallAbove(x, y) && y > 0) {
+					from[count] = curr;
+					to[count] = curr - 1;
+					weights[count++] = maze.getWeightAbove(x, y);
 				}
 
-				if (!maze.isWallBelow(curr) && this.containsVertex(down)) {
-					this.addEdge(curr, down, maze.getWeightBelow(curr));
+				if (!maze.isWallBelow(x, y) && y < height - 1) {
+					from[count] = curr;
+					to[count] = curr + 1;
+					weights[count++] = maze.getWeightBelow(x, y);
 				}
 
-				if (!maze.isWallToLeft(curr) && this.containsVertex(left)) {
-					this.addEdge(curr, left, maze.getWeightToLeft(curr));
+				if (!maze.isWallToLeft(x, y) && x > 0) {
+					from[count] = curr;
+					to[count] = curr - height;
+					weights[count++] = maze.getWeightToLeft(x, y);
 				}
 
-				if (!maze.isWallToRight(curr) && this.containsVertex(right)) {
-					this.addEdge(curr, right, maze.getWeightToRight(curr));
+				if (!maze.isWallToRight(x, y) && x < width - 1) {
+					from[count] = curr;
+					to[count] = curr + height;
+					weights[count++] = maze.getWeightToRight(x, y);
 				}
 			}
+			builder.addEdges(from, to, weights, 0, count);
 		}
+		return builder;
+	}
+
+	/**
+	 * Returns the Manhattan-distance heuristic for this maze, scaled by the
+	 * smallest edge weight, for use with DoAStar.
+	 * 
+	 * @return an admissible heuristic for searches in this maze
+	 */
+	public Heuristic<Juncture> manhattanHeuristic() {
+		return Heuristic.manhattan(getMinEdgeWeight());
 	}
 }
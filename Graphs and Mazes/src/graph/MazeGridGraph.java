@@ -0,0 +1,210 @@
+package graph;
+
+import java.util.List;
+
+import maze.Juncture;
+import maze.Maze;
+
+/**
+ * <P>
+ * A read-only graph view of a Maze that stores no edges at all. It has the
+ * same vertices and edges as a MazeGraph built from the same Maze, but every
+ * neighbor and weight is read straight from the Maze's wall and weight arrays
+ * when an algorithm asks for it. The juncture at (x, y) has index
+ * y * width + x.
+ * </P>
+ *
+ * <P>
+ * Because nothing is stored per juncture or per edge, the only memory a search
+ * needs is its own arrays (a few ints per juncture), so mazes with tens of
+ * millions of junctures can be searched. Like MazeGraph, the view can perform
+ * all of the graph algorithms and notifies its GraphAlgorithmObservers as it
+ * goes.
+ * </P>
+ */
+public class MazeGridGraph extends AbstractIndexedGraph<Juncture> {
+
+	private final Maze maze;
+	private final int width;
+	private final int height;
+	private final int maxEdgeWeight;
+	private final int minEdgeWeight;
+
+	/**
+	 * Creates a view of the maze. The maze must not change while the view is in
+	 * use.
+	 *
+	 * @param maze to be used as the source of every vertex, edge and weight
+	 */
+	public MazeGridGraph(Maze maze) {
+		this.maze = maze;
+		width = maze.getMazeWidth();
+		height = maze.getMazeHeight();
+
+		// every edge weight appears once as "below" or "to the right" of a juncture
+		int max = 0;
+		int min = Integer.MAX_VALUE;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (y + 1 < height && !maze.isWallBelow(x, y)) {
+					max = Math.max(max, maze.getWeightBelow(x, y));
+					min = Math.min(min, maze.getWeightBelow(x, y));
+				}
+				if (x + 1 < width && !maze.isWallToRight(x, y)) {
+					max = Math.max(max, maze.getWeightToRight(x, y));
+					min = Math.min(min, maze.getWeightToRight(x, y));
+				}
+			}
+		}
+		maxEdgeWeight = max;
+		minEdgeWeight = min == Integer.MAX_VALUE ? 0 : min;
+	}
+
+	/**
+	 * Searches for a given vertex.
+	 *
+	 * @param vertex the vertex we are looking for
+	 * @return true if the juncture lies inside the maze, false otherwise.
+	 */
+	public boolean containsVertex(Juncture vertex) {
+		return getIndex(vertex) != -1;
+	}
+
+	/**
+	 * Returns weight of the edge connecting one juncture to another. Returns null
+	 * if the edge does not exist (the junctures are not adjacent, or there is a
+	 * wall between them).
+	 *
+	 * @param from juncture where edge begins
+	 * @param to   juncture where edge terminates
+	 * @return weight of the edge, or null if there is no edge connecting these
+	 *         junctures
+	 * @throws IllegalArgumentException if either of the junctures specified are
+	 *                                  not in the maze.
+	 */
+	public Integer getWeight(Juncture from, Juncture to) {
+		if (!containsVertex(from) || !containsVertex(to)) {
+			throw new IllegalArgumentException();
+		}
+		int weight = weight(from.getX(), from.getY(), to.getX() - from.getX(), to.getY() - from.getY());
+		return weight == -1 ? null : weight;
+	}
+
+	/**
+	 * @return the smallest weight of any edge in the maze, or 0 if there are no
+	 *         edges
+	 */
+	public int getMinEdgeWeight() {
+		return minEdgeWeight;
+	}
+
+	/**
+	 * Returns the Manhattan-distance heuristic for this maze, scaled by the
+	 * smallest edge weight, for use with DoAStar.
+	 *
+	 * @return an admissible heuristic for searches in this maze
+	 */
+	public Heuristic<Juncture> manhattanHeuristic() {
+		return Heuristic.manhattan(minEdgeWeight);
+	}
+
+	/**
+	 * <P>
+	 * Find a path from "start" to "end" with the fewest steps, like DoBFS but
+	 * using Jump Point Search. Instead of queueing every juncture it reaches, the
+	 * search runs along straight lines of junctures, reading the walls directly
+	 * from the Maze, and only queues the junctures where a path may have to
+	 * turn. The weights are ignored.
+	 * </P>
+	 *
+	 * <P>
+	 * The observers are not notified. The path is returned in the same format as
+	 * DoBidirectionalBFS: the first juncture is "start", the last is "end", and
+	 * the list is empty if "end" cannot be reached.
+	 * </P>
+	 *
+	 * @param start juncture where the path begins
+	 * @param end   juncture where the path ends
+	 * @return a path from start to end with the fewest steps
+	 * @throws IllegalArgumentException if either juncture is not in the maze
+	 */
+	public List<Juncture> DoJumpPointSearch(Juncture start, Juncture end) {
+		int first = getIndex(start);
+		int goal = getIndex(end);
+		if (first == -1 || goal == -1) {
+			throw new IllegalArgumentException();
+		}
+		return JumpPointSearch.findPath(maze, first, goal);
+	}
+
+	public int getVertexCount() {
+		return width * height;
+	}
+
+	public Juncture getVertex(int index) {
+		return new Juncture(index % width, index / width);
+	}
+
+	public int getIndex(Juncture vertex) {
+		int x = vertex.getX();
+		int y = vertex.getY();
+		if (x < 0 || x >= width || y < 0 || y >= height) {
+			return -1;
+		}
+		return y * width + x;
+	}
+
+	/*
+	 * The edges come out in the same order MazeGraph adds them: up, down, left,
+	 * right.
+	 */
+	public void getEdges(int from, EdgeBuffer edges) {
+		edges.clear();
+		int x = from % width;
+		int y = from / width;
+		if (y > 0 && !maze.isWallAbove(x, y)) {
+			edges.add(from - width, maze.getWeightAbove(x, y));
+		}
+		if (y + 1 < height && !maze.isWallBelow(x, y)) {
+			edges.add(from + width, maze.getWeightBelow(x, y));
+		}
+		if (x > 0 && !maze.isWallToLeft(x, y)) {
+			edges.add(from - 1, maze.getWeightToLeft(x, y));
+		}
+		if (x + 1 < width && !maze.isWallToRight(x, y)) {
+			edges.add(from + 1, maze.getWeightToRight(x, y));
+		}
+	}
+
+	/*
+	 * A wall blocks both directions and the two sides of an opening share one
+	 * weight, so the edges entering a juncture are exactly the edges leaving it.
+	 */
+	public void getReverseEdges(int to, EdgeBuffer edges) {
+		getEdges(to, edges);
+	}
+
+	public int getMaxEdgeWeight() {
+		return maxEdgeWeight;
+	}
+
+	/*
+	 * Weight of the edge from (x, y) one step in direction (dx, dy), or -1 if
+	 * the step is not to an adjacent juncture or a wall is in the way.
+	 */
+	private int weight(int x, int y, int dx, int dy) {
+		if (dx == 0 && dy == -1 && !maze.isWallAbove(x, y)) {
+			return maze.getWeightAbove(x, y);
+		}
+		if (dx == 0 && dy == 1 && !maze.isWallBelow(x, y)) {
+			return maze.getWeightBelow(x, y);
+		}
+		if (dx == -1 && dy == 0 && !maze.isWallToLeft(x, y)) {
+			return maze.getWeightToLeft(x, y);
+		}
+		if (dx == 1 && dy == 0 && !maze.isWallToRight(x, y)) {
+			return maze.getWeightToRight(x, y);
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,497 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import maze.Juncture;
+import maze.Maze;
+
+/**
+ * <P>
+ * Hierarchical path finding (HPA*) over a Maze. The maze is cut into square
+ * clusters of junctures. Every juncture that has an opening into a
+ * neighboring cluster becomes a "transition", and for each cluster the lowest
+ * cost between every pair of its transitions (staying inside the cluster) is
+ * computed in advance. A query searches this much smaller abstract graph of
+ * transitions, and then fills in the actual junctures only along the clusters
+ * the chosen route passes through.
+ * </P>
+ *
+ * <P>
+ * Every opening between two clusters is a transition, so the paths found are
+ * lowest-cost paths, with the same cost DoDijsktra reports. The hierarchy
+ * reads the maze directly; after a wall is changed through setWallBelow or
+ * setWallToRight, only the one or two clusters next to that wall are rebuilt.
+ * </P>
+ *
+ * <P>
+ * A MazeHierarchy reuses its search arrays between queries, so it must not be
+ * used by more than one thread at a time.
+ * </P>
+ */
+public class MazeHierarchy {
+
+	/**
+	 * The cluster size used when none is given.
+	 */
+	public static final int DEFAULT_CLUSTER_SIZE = 16;
+
+	private final Maze maze;
+	private final MazeGridGraph grid;
+	private final int width;
+	private final int height;
+	private final int clusterSize;
+	private final int clustersAcross;
+	private final int clustersDown;
+	private final int minEdgeWeight;
+
+	/*
+	 * For cluster c: transitions[c][j] is the juncture index of its transition
+	 * j, transitionIndex[c] maps a juncture index back to j, and
+	 * transitionCost[c][j * k + i] is the lowest cost from transition j to
+	 * transition i inside the cluster (k transitions, UNREACHABLE if none).
+	 */
+	private final int[][] transitions;
+	private final IntIntHashMap[] transitionIndex;
+	private final int[][] transitionCost;
+
+	/*
+	 * Abstract vertex c * slotsPerCluster + j is transition j of cluster c; the
+	 * last two abstract vertices stand for the start and end of a query.
+	 */
+	private final int slotsPerCluster;
+	private final int startVertex;
+	private final int endVertex;
+
+	private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	// search arrays reused by every query
+	private final LocalSearch local;
+	private final int[] cost;
+	private final int[] predecessor;
+	private final int[] stamp;
+	private final int[] estimate;
+	private int generation;
+	private final IndexedMinHeap open;
+
+	/**
+	 * Builds the hierarchy with clusters of DEFAULT_CLUSTER_SIZE junctures on a
+	 * side.
+	 *
+	 * @param maze maze to be searched
+	 */
+	public MazeHierarchy(Maze maze) {
+		this(maze, DEFAULT_CLUSTER_SIZE);
+	}
+
+	/**
+	 * Builds the hierarchy. Smaller clusters make rebuilding a cluster and
+	 * refining a path cheaper; larger clusters make the abstract graph smaller.
+	 *
+	 * @param maze        maze to be searched
+	 * @param clusterSize number of junctures along each side of a cluster
+	 * @throws IllegalArgumentException if clusterSize is less than 1
+	 */
+	public MazeHierarchy(Maze maze, int clusterSize) {
+		if (clusterSize < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.maze = maze;
+		this.grid = new MazeGridGraph(maze);
+		this.clusterSize = clusterSize;
+		width = maze.getMazeWidth();
+		height = maze.getMazeHeight();
+		clustersAcross = (width + clusterSize - 1) / clusterSize;
+		clustersDown = (height + clusterSize - 1) / clusterSize;
+
+		// walls can be taken away later, so every weight counts, walled or not
+		int min = Integer.MAX_VALUE;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (y + 1 < height) {
+					min = Math.min(min, maze.getWeightBelow(x, y));
+				}
+				if (x + 1 < width) {
+					min = Math.min(min, maze.getWeightToRight(x, y));
+				}
+			}
+		}
+		minEdgeWeight = min == Integer.MAX_VALUE ? 0 : min;
+
+		int clusterCount = clustersAcross * clustersDown;
+		transitions = new int[clusterCount][];
+		transitionIndex = new IntIntHashMap[clusterCount];
+		transitionCost = new int[clusterCount][];
+		slotsPerCluster = 4 * clusterSize;
+		startVertex = clusterCount * slotsPerCluster;
+		endVertex = startVertex + 1;
+
+		local = new LocalSearch(clusterSize);
+		cost = new int[endVertex + 1];
+		predecessor = new int[endVertex + 1];
+		stamp = new int[endVertex + 1];
+		estimate = new int[endVertex + 1];
+		open = new IndexedMinHeap(endVertex + 1);
+
+		for (int c = 0; c < clusterCount; c++) {
+			buildCluster(c);
+		}
+	}
+
+	/**
+	 * @return number of junctures along each side of a cluster
+	 */
+	public int getClusterSize() {
+		return clusterSize;
+	}
+
+	/**
+	 * @return total number of transitions in the abstract graph
+	 */
+	public int getTransitionCount() {
+		int count = 0;
+		for (int[] cluster : transitions) {
+			count += cluster.length;
+		}
+		return count;
+	}
+
+	/**
+	 * Puts a wall below the juncture at (x, y), or takes it away, and rebuilds
+	 * the clusters on either side of it.
+	 *
+	 * @param x    column of the juncture
+	 * @param y    row of the juncture
+	 * @param wall true to put up a wall, false to take it away
+	 * @throws IllegalArgumentException if (x, y) or the juncture below it is not
+	 *                                  in the maze
+	 */
+	public void setWallBelow(int x, int y, boolean wall) {
+		maze.setWallBelow(x, y, wall);
+		wallChanged(x, y, x, y + 1);
+	}
+
+	/**
+	 * Puts a wall to the right of the juncture at (x, y), or takes it away, and
+	 * rebuilds the clusters on either side of it.
+	 *
+	 * @param x    column of the juncture
+	 * @param y    row of the juncture
+	 * @param wall true to put up a wall, false to take it away
+	 * @throws IllegalArgumentException if (x, y) or the juncture to its right is
+	 *                                  not in the maze
+	 */
+	public void setWallToRight(int x, int y, boolean wall) {
+		maze.setWallToRight(x, y, wall);
+		wallChanged(x, y, x + 1, y);
+	}
+
+	/**
+	 * Tells the hierarchy that the wall between two adjacent junctures was
+	 * changed directly on the Maze, so the clusters holding them are rebuilt.
+	 *
+	 * @param x1 column of one juncture
+	 * @param y1 row of one juncture
+	 * @param x2 column of the other juncture
+	 * @param y2 row of the other juncture
+	 * @throws IllegalArgumentException if either juncture is not in the maze
+	 */
+	public void wallChanged(int x1, int y1, int x2, int y2) {
+		if (!inMaze(x1, y1) || !inMaze(x2, y2)) {
+			throw new IllegalArgumentException();
+		}
+		int first = clusterOf(x1, y1);
+		int second = clusterOf(x2, y2);
+		buildCluster(first);
+		if (second != first) {
+			buildCluster(second);
+		}
+	}
+
+	/**
+	 * Finds a lowest-cost path between two junctures.
+	 *
+	 * @param start juncture where the path begins
+	 * @param end   juncture where the path ends
+	 * @return the path and its cost; the path is empty if "end" cannot be
+	 *         reached
+	 * @throws IllegalArgumentException if either juncture is not in the maze
+	 */
+	public ShortestPath<Juncture> findPath(Juncture start, Juncture end) {
+		if (!inMaze(start.getX(), start.getY()) || !inMaze(end.getX(), end.getY())) {
+			throw new IllegalArgumentException();
+		}
+		int startCell = grid.getIndex(start);
+		int endCell = grid.getIndex(end);
+		int startCluster = clusterOf(start.getX(), start.getY());
+		int endCluster = clusterOf(end.getX(), end.getY());
+
+		// costs from the start to its cluster's transitions, and from the end's
+		// cluster's transitions to the end (the maze's edges go both ways)
+		int[] fromStart = localCosts(startCluster, startCell);
+		int[] toEnd = localCosts(endCluster, endCell);
+		int direct = UNREACHABLE;
+		if (startCluster == endCluster) {
+			local.run(startCluster, startCell);
+			direct = local.costTo(endCell);
+		}
+
+		beginSearch();
+		reach(startVertex, 0, -1, end);
+		while (!open.isEmpty()) {
+			int next = open.poll();
+			if (next == endVertex) {
+				break;
+			}
+			int base = cost[next];
+			if (next == startVertex) {
+				if (direct != UNREACHABLE) {
+					reach(endVertex, base + direct, next, end);
+				}
+				for (int j = 0; j < fromStart.length; j++) {
+					if (fromStart[j] != UNREACHABLE) {
+						reach(startCluster * slotsPerCluster + j, base + fromStart[j], next, end);
+					}
+				}
+				continue;
+			}
+
+			int c = next / slotsPerCluster;
+			int j = next % slotsPerCluster;
+			int k = transitions[c].length;
+			for (int i = 0; i < k; i++) {
+				int step = transitionCost[c][j * k + i];
+				if (i != j && step != UNREACHABLE) {
+					reach(c * slotsPerCluster + i, base + step, next, end);
+				}
+			}
+			if (c == endCluster && toEnd[j] != UNREACHABLE) {
+				reach(endVertex, base + toEnd[j], next, end);
+			}
+			// the openings into neighboring clusters
+			int cell = transitions[c][j];
+			int x = cell % width;
+			int y = cell / width;
+			if (y > 0 && !maze.isWallAbove(x, y)) {
+				cross(c, next, x, y - 1, base + maze.getWeightAbove(x, y), end);
+			}
+			if (y + 1 < height && !maze.isWallBelow(x, y)) {
+				cross(c, next, x, y + 1, base + maze.getWeightBelow(x, y), end);
+			}
+			if (x > 0 && !maze.isWallToLeft(x, y)) {
+				cross(c, next, x - 1, y, base + maze.getWeightToLeft(x, y), end);
+			}
+			if (x + 1 < width && !maze.isWallToRight(x, y)) {
+				cross(c, next, x + 1, y, base + maze.getWeightToRight(x, y), end);
+			}
+		}
+
+		if (!isReached(endVertex)) {
+			return new ShortestPath<Juncture>(start, end, -1, new ArrayList<Juncture>());
+		}
+		// the abstract path, from start to end, as juncture indices
+		List<Integer> cells = new ArrayList<Integer>();
+		for (int curr = endVertex; curr != -1; curr = predecessor[curr]) {
+			cells.add(curr == startVertex ? startCell : curr == endVertex ? endCell : cellOf(curr));
+		}
+		Collections.reverse(cells);
+
+		// refine: walk each step inside its cluster, or across one opening
+		List<Juncture> path = new ArrayList<Juncture>();
+		path.add(start);
+		for (int i = 1; i < cells.size(); i++) {
+			int from = cells.get(i - 1);
+			int to = cells.get(i);
+			int cluster = clusterOf(from % width, from / width);
+			if (cluster == clusterOf(to % width, to / width)) {
+				if (from != to) {
+					local.run(cluster, from);
+					local.appendPath(to, path);
+				}
+			} else {
+				path.add(grid.getVertex(to));
+			}
+		}
+		return new ShortestPath<Juncture>(start, end, cost[endVertex], path);
+	}
+
+	// steps from a transition of cluster c into the neighboring cluster
+	private void cross(int c, int from, int x, int y, int newCost, Juncture end) {
+		int neighbor = clusterOf(x, y);
+		if (neighbor != c) {
+			int j = transitionIndex[neighbor].get(y * width + x, -1);
+			reach(neighbor * slotsPerCluster + j, newCost, from, end);
+		}
+	}
+
+	/*
+	 * Finds the transitions of a cluster (its junctures with an opening into
+	 * another cluster) and the lowest costs between them inside the cluster.
+	 */
+	private void buildCluster(int c) {
+		int x0 = (c % clustersAcross) * clusterSize;
+		int y0 = (c / clustersAcross) * clusterSize;
+		int x1 = Math.min(x0 + clusterSize, width);
+		int y1 = Math.min(y0 + clusterSize, height);
+
+		IntIntHashMap index = new IntIntHashMap();
+		int[] cells = new int[slotsPerCluster];
+		int count = 0;
+		for (int y = y0; y < y1; y++) {
+			for (int x = x0; x < x1; x++) {
+				boolean transition = (y == y0 && y > 0 && !maze.isWallAbove(x, y))
+						|| (y == y1 - 1 && y + 1 < height && !maze.isWallBelow(x, y))
+						|| (x == x0 && x > 0 && !maze.isWallToLeft(x, y))
+						|| (x == x1 - 1 && x + 1 < width && !maze.isWallToRight(x, y));
+				if (transition) {
+					index.put(y * width + x, count);
+					cells[count++] = y * width + x;
+				}
+			}
+		}
+		transitions[c] = Arrays.copyOf(cells, count);
+		transitionIndex[c] = index;
+
+		int[] costs = new int[count * count];
+		for (int j = 0; j < count; j++) {
+			local.run(c, transitions[c][j]);
+			for (int i = 0; i < count; i++) {
+				costs[j * count + i] = local.costTo(transitions[c][i]);
+			}
+		}
+		transitionCost[c] = costs;
+	}
+
+	// the costs from a juncture to every transition of its cluster, inside it
+	private int[] localCosts(int c, int cell) {
+		local.run(c, cell);
+		int[] costs = new int[transitions[c].length];
+		for (int j = 0; j < costs.length; j++) {
+			costs[j] = local.costTo(transitions[c][j]);
+		}
+		return costs;
+	}
+
+	private void beginSearch() {
+		open.clear();
+		if (generation == Integer.MAX_VALUE) {
+			Arrays.fill(stamp, 0);
+			generation = 0;
+		}
+		generation++;
+	}
+
+	private boolean isReached(int vertex) {
+		return stamp[vertex] == generation;
+	}
+
+	// records a path of the given cost to an abstract vertex, if it is cheaper
+	private void reach(int vertex, int newCost, int from, Juncture end) {
+		if (!isReached(vertex)) {
+			stamp[vertex] = generation;
+			int cell = vertex == startVertex || vertex == endVertex ? -1 : cellOf(vertex);
+			estimate[vertex] = cell == -1 ? 0
+					: minEdgeWeight * (Math.abs(cell % width - end.getX()) + Math.abs(cell / width - end.getY()));
+		} else if (newCost >= cost[vertex]) {
+			return;
+		}
+		cost[vertex] = newCost;
+		predecessor[vertex] = from;
+		if (open.contains(vertex)) {
+			open.decreaseKey(vertex, newCost + estimate[vertex]);
+		} else {
+			open.add(vertex, newCost + estimate[vertex]);
+		}
+	}
+
+	private int cellOf(int vertex) {
+		return transitions[vertex / slotsPerCluster][vertex % slotsPerCluster];
+	}
+
+	private int clusterOf(int x, int y) {
+		return (y / clusterSize) * clustersAcross + x / clusterSize;
+	}
+
+	private boolean inMaze(int x, int y) {
+		return x >= 0 && x < width && y >= 0 && y < height;
+	}
+
+	/*
+	 * Dijkstra's algorithm confined to one cluster, with arrays indexed by a
+	 * juncture's position inside the cluster.
+	 */
+	private class LocalSearch {
+		private final int[] localCost;
+		private final int[] localPredecessor;
+		private final IndexedMinHeap queue;
+		private final EdgeBuffer edges = new EdgeBuffer();
+		private int x0;
+		private int y0;
+		private int x1;
+		private int y1;
+
+		private LocalSearch(int clusterSize) {
+			localCost = new int[clusterSize * clusterSize];
+			localPredecessor = new int[clusterSize * clusterSize];
+			queue = new IndexedMinHeap(clusterSize * clusterSize);
+		}
+
+		private void run(int c, int sourceCell) {
+			x0 = (c % clustersAcross) * clusterSize;
+			y0 = (c / clustersAcross) * clusterSize;
+			x1 = Math.min(x0 + clusterSize, width);
+			y1 = Math.min(y0 + clusterSize, height);
+			Arrays.fill(localCost, UNREACHABLE);
+			int source = local(sourceCell);
+			localCost[source] = 0;
+			localPredecessor[source] = -1;
+			queue.clear();
+			queue.add(source, 0);
+			while (!queue.isEmpty()) {
+				int next = queue.poll();
+				grid.getEdges(global(next), edges);
+				for (int i = 0; i < edges.size(); i++) {
+					int target = edges.getTarget(i);
+					int tx = target % width;
+					int ty = target / width;
+					if (tx < x0 || tx >= x1 || ty < y0 || ty >= y1) {
+						continue;
+					}
+					int curr = local(target);
+					int newCost = localCost[next] + edges.getWeight(i);
+					if (newCost < localCost[curr]) {
+						localCost[curr] = newCost;
+						localPredecessor[curr] = next;
+						if (queue.contains(curr)) {
+							queue.decreaseKey(curr, newCost);
+						} else {
+							queue.add(curr, newCost);
+						}
+					}
+				}
+			}
+		}
+
+		private int costTo(int cell) {
+			return localCost[local(cell)];
+		}
+
+		// appends the junctures after the source on the way to "cell"
+		private void appendPath(int cell, List<Juncture> path) {
+			int size = path.size();
+			for (int curr = local(cell); localPredecessor[curr] != -1; curr = localPredecessor[curr]) {
+				path.add(size, grid.getVertex(global(curr)));
+			}
+		}
+
+		private int local(int cell) {
+			return (cell / width - y0) * (x1 - x0) + (cell % width - x0);
+		}
+
+		private int global(int local) {
+			return (y0 + local / (x1 - x0)) * width + x0 + local % (x1 - x0);
+		}
+	}
+}
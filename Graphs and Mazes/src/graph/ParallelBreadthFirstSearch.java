@@ -0,0 +1,160 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * <P>
+ * A level-synchronous Breadth-First-Search that expands each level in
+ * parallel on the common ForkJoinPool. See AbstractIndexedGraph.DoParallelBFS.
+ * </P>
+ *
+ * <P>
+ * Each level is expanded in one of two ways. A "top-down" step walks the
+ * edges leaving the vertices of the current level (the frontier) and claims
+ * every vertex not yet reached; a vertex can be found by several threads at
+ * once, so the claim is a compare-and-set on its parent. A "bottom-up" step
+ * instead walks the edges entering each vertex not yet reached and stops at
+ * the first one that comes from the frontier; every vertex belongs to exactly
+ * one thread, so nothing needs to be atomic. Bottom-up is much cheaper once
+ * the frontier holds a large part of what is left, because most unreached
+ * vertices then find a parent after looking at only a few edges.
+ * </P>
+ */
+final class ParallelBreadthFirstSearch {
+
+	/*
+	 * Switch to bottom-up when the frontier is larger than 1/ALPHA of the
+	 * unreached vertices, and back to top-down when it is smaller than 1/BETA of
+	 * all vertices. (These are the values from Beamer's paper, applied to
+	 * vertex counts instead of edge counts.)
+	 */
+	private static final int ALPHA = 14;
+	private static final int BETA = 24;
+
+	// a level with fewer vertices than this per thread is not split further
+	private static final int MIN_CHUNK = 4096;
+
+	private final IndexedGraph<?> graph;
+	private final int vertexCount;
+	private final int[] depth;
+
+	/*
+	 * parent[v] is -1 until v is reached; the start is its own parent until the
+	 * search is over.
+	 */
+	private final AtomicIntegerArray parent;
+
+	private ParallelBreadthFirstSearch(IndexedGraph<?> graph) {
+		this.graph = graph;
+		vertexCount = graph.getVertexCount();
+		depth = new int[vertexCount];
+		Arrays.fill(depth, Integer.MAX_VALUE);
+		parent = new AtomicIntegerArray(vertexCount);
+		for (int v = 0; v < vertexCount; v++) {
+			parent.set(v, -1);
+		}
+	}
+
+	/**
+	 * Finds the number of edges on a shortest path from "start" to every vertex,
+	 * and a parent for each vertex on such a path.
+	 *
+	 * @throws IllegalArgumentException if the start vertex is not in the graph
+	 */
+	static <V> ShortestPathTree<V> search(IndexedGraph<V> graph, V start) {
+		int first = graph.getIndex(start);
+		if (first == -1) {
+			throw new IllegalArgumentException();
+		}
+		ParallelBreadthFirstSearch search = new ParallelBreadthFirstSearch(graph);
+		search.run(first);
+
+		int[] predecessor = new int[search.vertexCount];
+		for (int v = 0; v < predecessor.length; v++) {
+			predecessor[v] = search.parent.get(v);
+		}
+		predecessor[first] = -1;
+		return new ShortestPathTree<V>(graph, start, search.depth, predecessor);
+	}
+
+	private void run(int first) {
+		depth[first] = 0;
+		parent.set(first, first);
+		int[] frontier = { first };
+		int unreached = vertexCount - 1;
+		boolean topDown = true;
+		for (int level = 0; frontier.length > 0; level++) {
+			if (topDown && (long) frontier.length * ALPHA > unreached) {
+				topDown = false;
+			} else if (!topDown && (long) frontier.length * BETA < vertexCount) {
+				topDown = true;
+			}
+			frontier = topDown ? topDownStep(frontier, level) : bottomUpStep(level);
+			unreached -= frontier.length;
+		}
+	}
+
+	// expands the frontier over the edges leaving it
+	private int[] topDownStep(final int[] frontier, final int level) {
+		List<ParallelTasks.VertexCollector> tasks = new ArrayList<ParallelTasks.VertexCollector>();
+		int chunks = ParallelTasks.chunks(frontier.length, MIN_CHUNK);
+		for (int c = 0; c < chunks; c++) {
+			final int from = (int) ((long) frontier.length * c / chunks);
+			final int to = (int) ((long) frontier.length * (c + 1) / chunks);
+			tasks.add(new ParallelTasks.VertexCollector() {
+				public Void call() {
+					EdgeBuffer edges = new EdgeBuffer();
+					for (int i = from; i < to; i++) {
+						int next = frontier[i];
+						graph.getEdges(next, edges);
+						for (int e = 0; e < edges.size(); e++) {
+							int curr = edges.getTarget(e);
+							if (parent.get(curr) == -1 && parent.compareAndSet(curr, -1, next)) {
+								depth[curr] = level + 1;
+								collect(curr);
+							}
+						}
+					}
+					return null;
+				}
+			});
+		}
+		return ParallelTasks.collect(tasks);
+	}
+
+	// finds a parent in the frontier (the vertices at "level") for every unreached vertex
+	private int[] bottomUpStep(final int level) {
+		List<ParallelTasks.VertexCollector> tasks = new ArrayList<ParallelTasks.VertexCollector>();
+		int chunks = ParallelTasks.chunks(vertexCount, MIN_CHUNK);
+		for (int c = 0; c < chunks; c++) {
+			final int from = (int) ((long) vertexCount * c / chunks);
+			final int to = (int) ((long) vertexCount * (c + 1) / chunks);
+			tasks.add(new ParallelTasks.VertexCollector() {
+				public Void call() {
+					EdgeBuffer edges = new EdgeBuffer();
+					for (int curr = from; curr < to; curr++) {
+						if (parent.get(curr) != -1) {
+							continue;
+						}
+						graph.getReverseEdges(curr, edges);
+						for (int e = 0; e < edges.size(); e++) {
+							int next = edges.getTarget(e);
+							// a vertex found in this step has depth level + 1, never level
+							if (depth[next] == level) {
+								parent.set(curr, next);
+								depth[curr] = level + 1;
+								collect(curr);
+								break;
+							}
+						}
+					}
+					return null;
+				}
+			});
+		}
+		return ParallelTasks.collect(tasks);
+	}
+}
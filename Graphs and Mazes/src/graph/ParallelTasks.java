@@ -0,0 +1,103 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the pieces of a parallel algorithm on the common ForkJoinPool.
+ */
+final class ParallelTasks {
+
+	private ParallelTasks() {
+	}
+
+	/**
+	 * @return number of threads the common ForkJoinPool runs tasks on
+	 */
+	static int parallelism() {
+		return ForkJoinPool.getCommonPoolParallelism();
+	}
+
+	/**
+	 * Into how many tasks to split "work" items, so that every thread gets a few
+	 * tasks but no task gets fewer than minChunk items (unless there is only
+	 * one).
+	 */
+	static int chunks(int work, int minChunk) {
+		return Math.max(1, Math.min(4 * parallelism(), work / minChunk));
+	}
+
+	/**
+	 * Runs every task and waits for all of them. Everything the tasks wrote is
+	 * visible to the calling thread afterwards. A RuntimeException thrown by a
+	 * task is rethrown as it is; anything else is wrapped in an
+	 * IllegalStateException.
+	 *
+	 * @param tasks tasks to be run, in any order and possibly at the same time
+	 */
+	static void invokeAll(List<? extends Callable<Void>> tasks) {
+		if (tasks.size() == 1) {
+			// no need to hand a single task to another thread
+			try {
+				tasks.get(0).call();
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+			return;
+		}
+		for (Future<Void> result : ForkJoinPool.commonPool().invokeAll(tasks)) {
+			try {
+				result.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * Runs every task, then puts the vertices they collected together, in the
+	 * order of the tasks.
+	 */
+	static int[] collect(List<? extends VertexCollector> tasks) {
+		invokeAll(tasks);
+		int size = 0;
+		for (VertexCollector task : tasks) {
+			size += task.size;
+		}
+		int[] all = new int[size];
+		int position = 0;
+		for (VertexCollector task : tasks) {
+			System.arraycopy(task.vertices, 0, all, position, task.size);
+			position += task.size;
+		}
+		return all;
+	}
+
+	/*
+	 * A task that collects a list of vertex indices (such as the vertices it
+	 * reached) without sharing it with any other task.
+	 */
+	abstract static class VertexCollector implements Callable<Void> {
+		private int[] vertices = new int[16];
+		private int size;
+
+		protected void collect(int vertex) {
+			if (size == vertices.length) {
+				vertices = Arrays.copyOf(vertices, 2 * size);
+			}
+			vertices[size++] = vertex;
+		}
+	}
+}
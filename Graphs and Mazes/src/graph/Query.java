@@ -0,0 +1,42 @@
+package graph;
+
+/**
+ * <P>
+ * One route request for solveAll: find the lowest-cost path from a start
+ * vertex to an end vertex. A Query never changes once it has been created.
+ * </P>
+ *
+ * @param <V> type of the vertices
+ */
+public final class Query<V> {
+
+	private final V start;
+	private final V end;
+
+	/**
+	 * @param start vertex where the path begins
+	 * @param end   vertex where the path ends
+	 */
+	public Query(V start, V end) {
+		this.start = start;
+		this.end = end;
+	}
+
+	/**
+	 * @return vertex where the path begins
+	 */
+	public V getStart() {
+		return start;
+	}
+
+	/**
+	 * @return vertex where the path ends
+	 */
+	public V getEnd() {
+		return end;
+	}
+
+	public String toString() {
+		return start + " -> " + end;
+	}
+}
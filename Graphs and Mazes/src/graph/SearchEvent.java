@@ -0,0 +1,47 @@
+package graph;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * The Java Flight Recorder event written for every run of DoBFS, DoDFS and
+ * DoDijsktra while a recording has "graph.Search" enabled. It carries the
+ * same numbers as the run's SearchStats.
+ */
+@Name("graph.Search")
+@Label("Graph Search")
+@Category("Graphs and Mazes")
+@Description("One run of Breadth-First-Search, Depth-First-Search or Dijkstra's algorithm")
+final class SearchEvent extends Event {
+
+	@Label("Algorithm")
+	String algorithm;
+
+	@Label("Vertices Settled")
+	int verticesSettled;
+
+	@Label("Edges Relaxed")
+	long edgesRelaxed;
+
+	@Label("Queue Operations")
+	long queueOperations;
+
+	@Label("Peak Frontier")
+	int peakFrontier;
+
+	@Label("Setup Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long setupNanos;
+
+	@Label("Search Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long searchNanos;
+
+	@Label("Result Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long resultNanos;
+}
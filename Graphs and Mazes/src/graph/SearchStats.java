@@ -0,0 +1,188 @@
+package graph;
+
+/**
+ * <P>
+ * What one run of DoBFS, DoDFS or DoDijsktra did: how many vertices it
+ * visited or finished, how many edges it looked at, how much work its queue
+ * did and how long each phase took. A graph only measures its searches while
+ * a SearchStatsListener is registered with addStatsListener, or while a Java
+ * Flight Recorder recording has the "graph.Search" event turned on; otherwise
+ * the searches run as if none of this existed.
+ * </P>
+ *
+ * <P>
+ * The phases are "setup" (checking the arguments and preparing the
+ * bookkeeping), "search" (the main loop) and "result" (building the path or
+ * tree and reporting it to the observers; for Breadth- and Depth-First-Search
+ * only the report that the search is over).
+ * </P>
+ */
+public final class SearchStats {
+
+	/**
+	 * The algorithm that was measured.
+	 */
+	public enum Algorithm {
+		BFS, DFS, DIJKSTRA
+	}
+
+	private final Algorithm algorithm;
+	private final SearchEvent event;
+
+	private final long started;
+	private long searchStarted;
+	private long resultStarted;
+	private long ended;
+
+	private int verticesSettled;
+	private long edgesRelaxed;
+	private long queueInserts;
+	private long queuePolls;
+	private long decreaseKeys;
+	private int peakFrontier;
+
+	SearchStats(Algorithm algorithm, SearchEvent event) {
+		this.algorithm = algorithm;
+		this.event = event;
+		event.begin();
+		started = System.nanoTime();
+	}
+
+	// marks the end of the setup phase
+	void beginSearch() {
+		searchStarted = System.nanoTime();
+	}
+
+	// marks the end of the search phase
+	void beginResult() {
+		resultStarted = System.nanoTime();
+	}
+
+	/*
+	 * Records the counters of the main loop. "inserts" and "polls" count every
+	 * vertex added to and taken from the queue (or stack); "peakFrontier" is
+	 * the most vertices it held at once.
+	 */
+	void count(int settled, long relaxed, long inserts, long polls, long decreases, int peakFrontier) {
+		verticesSettled = settled;
+		edgesRelaxed = relaxed;
+		queueInserts = inserts;
+		queuePolls = polls;
+		decreaseKeys = decreases;
+		this.peakFrontier = peakFrontier;
+	}
+
+	/*
+	 * Marks the end of the run and writes the Flight Recorder event, if one is
+	 * being recorded.
+	 */
+	void finish() {
+		ended = System.nanoTime();
+		event.end();
+		if (event.shouldCommit()) {
+			event.algorithm = algorithm.name();
+			event.verticesSettled = verticesSettled;
+			event.edgesRelaxed = edgesRelaxed;
+			event.queueOperations = getQueueOperations();
+			event.peakFrontier = peakFrontier;
+			event.setupNanos = getSetupNanos();
+			event.searchNanos = getSearchNanos();
+			event.resultNanos = getResultNanos();
+			event.commit();
+		}
+	}
+
+	/**
+	 * @return the algorithm that was run
+	 */
+	public Algorithm getAlgorithm() {
+		return algorithm;
+	}
+
+	/**
+	 * @return the number of vertices visited (BFS, DFS) or finished (Dijkstra)
+	 */
+	public int getVerticesSettled() {
+		return verticesSettled;
+	}
+
+	/**
+	 * @return the number of edges looked at from the vertices settled
+	 */
+	public long getEdgesRelaxed() {
+		return edgesRelaxed;
+	}
+
+	/**
+	 * @return the number of vertices added to the queue (BFS), the stack (DFS)
+	 *         or the priority queue (Dijkstra)
+	 */
+	public long getQueueInserts() {
+		return queueInserts;
+	}
+
+	/**
+	 * @return the number of vertices taken from the queue, stack or priority
+	 *         queue
+	 */
+	public long getQueuePolls() {
+		return queuePolls;
+	}
+
+	/**
+	 * @return the number of times Dijkstra's algorithm lowered the cost of a
+	 *         vertex already in the priority queue; always 0 for BFS and DFS
+	 */
+	public long getDecreaseKeys() {
+		return decreaseKeys;
+	}
+
+	/**
+	 * @return inserts, polls and decrease-keys together
+	 */
+	public long getQueueOperations() {
+		return queueInserts + queuePolls + decreaseKeys;
+	}
+
+	/**
+	 * @return the most vertices the queue, stack or priority queue held at once
+	 */
+	public int getPeakFrontier() {
+		return peakFrontier;
+	}
+
+	/**
+	 * @return nanoseconds spent checking the arguments and preparing the
+	 *         bookkeeping
+	 */
+	public long getSetupNanos() {
+		return searchStarted - started;
+	}
+
+	/**
+	 * @return nanoseconds spent in the main loop
+	 */
+	public long getSearchNanos() {
+		return resultStarted - searchStarted;
+	}
+
+	/**
+	 * @return nanoseconds spent building the result and reporting it
+	 */
+	public long getResultNanos() {
+		return ended - resultStarted;
+	}
+
+	/**
+	 * @return nanoseconds from start to finish
+	 */
+	public long getTotalNanos() {
+		return ended - started;
+	}
+
+	public String toString() {
+		return algorithm + ": " + verticesSettled + " settled, " + edgesRelaxed + " edges, " + getQueueOperations()
+				+ " queue operations, peak frontier " + peakFrontier + ", " + getSetupNanos() / 1000 + "/"
+				+ getSearchNanos() / 1000 + "/" + getResultNanos() / 1000 + " us";
+	}
+}
@@ -0,0 +1,16 @@
+package graph;
+
+/**
+ * Registered with a graph's addStatsListener to be handed the SearchStats of
+ * every DoBFS, DoDFS and DoDijsktra the graph runs.
+ */
+public interface SearchStatsListener {
+
+	/**
+	 * Called by the graph, on the thread that ran the search, once the search
+	 * is over and its observers have been notified.
+	 *
+	 * @param stats what the search did
+	 */
+	public void notifySearchStats(SearchStats stats);
+}
@@ -0,0 +1,143 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * <P>
+ * Reusable memory for running many searches one after another: the cost,
+ * predecessor and mark arrays, the queue or stack, and the priority queue that
+ * DoBFS, DoDFS and DoDijsktraTo would otherwise allocate on every call. Pass
+ * the same workspace to the overloads of those methods that take one, and
+ * after the first search (or after the graph has grown) they allocate nothing
+ * but their results.
+ * </P>
+ *
+ * <P>
+ * The arrays are never cleared between searches. Each search gets a new
+ * "generation" number, and an entry only counts if it was stamped with the
+ * current one, so starting a search takes O(1) time however large the graph
+ * is. A workspace can be used with any number of graphs, but by only one
+ * thread at a time.
+ * </P>
+ */
+public final class SearchWorkspace {
+
+	/*
+	 * reached[v] == generation means cost[v] and predecessor[v] belong to the
+	 * current search; done[v] == generation means v has been visited (BFS/DFS)
+	 * or finished (Dijkstra).
+	 */
+	private int[] cost = new int[0];
+	private int[] predecessor = new int[0];
+	private int[] reached = new int[0];
+	private int[] done = new int[0];
+	private int[] vertices = new int[0];
+	private int generation;
+
+	private IndexedMinHeap heap;
+	private BucketQueue buckets;
+	private int bucketWeight = -1;
+
+	private final EdgeBuffer edges = new EdgeBuffer();
+
+	/**
+	 * Creates an empty workspace; its arrays are sized by the first search.
+	 */
+	public SearchWorkspace() {
+	}
+
+	/**
+	 * Starts a new search over a graph with the given number of vertices,
+	 * growing the arrays if they are too small.
+	 */
+	void begin(int vertexCount) {
+		if (cost.length < vertexCount) {
+			int capacity = Math.max(vertexCount, 2 * cost.length);
+			cost = new int[capacity];
+			predecessor = new int[capacity];
+			reached = new int[capacity];
+			done = new int[capacity];
+			vertices = new int[capacity];
+			heap = null;
+			buckets = null;
+			generation = 0;
+		}
+		if (generation == Integer.MAX_VALUE) {
+			Arrays.fill(reached, 0);
+			Arrays.fill(done, 0);
+			generation = 0;
+		}
+		generation++;
+	}
+
+	/**
+	 * An empty priority queue chosen as ShortestPathEngine.AUTO would choose it
+	 * for a graph whose largest edge weight is maxEdgeWeight.
+	 */
+	IndexedPriorityQueue queue(int maxEdgeWeight) {
+		if (maxEdgeWeight <= ShortestPathEngine.SMALL_WEIGHT_LIMIT) {
+			if (buckets == null || bucketWeight != maxEdgeWeight) {
+				buckets = new BucketQueue(cost.length, maxEdgeWeight);
+				bucketWeight = maxEdgeWeight;
+			} else {
+				buckets.clear();
+			}
+			return buckets;
+		}
+		if (heap == null) {
+			heap = new IndexedMinHeap(cost.length);
+		} else {
+			heap.clear();
+		}
+		return heap;
+	}
+
+	boolean isReached(int v) {
+		return reached[v] == generation;
+	}
+
+	/**
+	 * Marks v as reached in this search, with the given cost and predecessor.
+	 */
+	void reach(int v, int newCost, int from) {
+		reached[v] = generation;
+		cost[v] = newCost;
+		predecessor[v] = from;
+	}
+
+	int getCost(int v) {
+		return cost[v];
+	}
+
+	int getPredecessor(int v) {
+		return predecessor[v];
+	}
+
+	boolean isDone(int v) {
+		return done[v] == generation;
+	}
+
+	void setDone(int v) {
+		done[v] = generation;
+	}
+
+	/**
+	 * The array used as the BFS queue or DFS stack; it holds at least as many
+	 * entries as the graph has vertices.
+	 */
+	int[] vertices() {
+		return vertices;
+	}
+
+	/**
+	 * Doubles the array returned by vertices(), keeping its contents.
+	 */
+	int[] growVertices() {
+		vertices = Arrays.copyOf(vertices, Math.max(16, 2 * vertices.length));
+		return vertices;
+	}
+
+	EdgeBuffer edges() {
+		return edges;
+	}
+}
@@ -0,0 +1,76 @@
+package graph;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <P>
+ * The answer to one shortest-path query: the lowest-cost path from a start
+ * vertex to a target vertex, and its cost. Returned by DoDijsktraTo and
+ * DoDijsktraToAll. A ShortestPath never changes once it has been created.
+ * </P>
+ *
+ * @param <V> type of the vertices
+ */
+public final class ShortestPath<V> {
+
+	private final V start;
+	private final V target;
+	private final int cost;
+	private final List<V> path;
+
+	/*
+	 * "path" is owned by the ShortestPath from then on; it is empty and "cost"
+	 * is -1 when the target cannot be reached.
+	 */
+	ShortestPath(V start, V target, int cost, List<V> path) {
+		this.start = start;
+		this.target = target;
+		this.cost = cost;
+		this.path = Collections.unmodifiableList(path);
+	}
+
+	/**
+	 * @return vertex where the path begins
+	 */
+	public V getStart() {
+		return start;
+	}
+
+	/**
+	 * @return vertex where the path ends
+	 */
+	public V getTarget() {
+		return target;
+	}
+
+	/**
+	 * @return true if the target can be reached from the start
+	 */
+	public boolean isReachable() {
+		return cost != -1;
+	}
+
+	/**
+	 * @return total weight of the edges on the path, or -1 if the target cannot
+	 *         be reached
+	 */
+	public int getCost() {
+		return cost;
+	}
+
+	/**
+	 * Returns the path in the same format that DoDijsktra passes to
+	 * notifyDijkstraIsOver: the first vertex is the start, the last vertex is the
+	 * target, and the list is empty if the target cannot be reached.
+	 *
+	 * @return the lowest-cost path from start to target (cannot be modified)
+	 */
+	public List<V> getPath() {
+		return path;
+	}
+
+	public String toString() {
+		return target + "=" + cost + " " + path;
+	}
+}
@@ -0,0 +1,45 @@
+package graph;
+
+/**
+ * <P>
+ * Selects the priority queue that WeightedGraph uses to pick the next vertex
+ * during Dijkstra's algorithm. Every engine produces the same costs and the
+ * same lowest-cost path lengths; they differ only in speed, and in the order
+ * in which vertices of equal cost are finished.
+ * </P>
+ */
+public enum ShortestPathEngine {
+
+	/**
+	 * An indexed binary heap. Works for any non-negative weights and runs in
+	 * O((V + E) log V) time. Vertices of equal cost are finished in the order
+	 * they were added to the graph.
+	 */
+	BINARY_HEAP,
+
+	/**
+	 * A circular "Dial" bucket queue with one bucket per possible cost. Runs in
+	 * O(E + V + largest cost) time, which is close to linear when the edge
+	 * weights are small integers (a Maze only uses weights 1 through 9).
+	 * Vertices of equal cost are finished in the order they were reached. A
+	 * graph with an edge weight above BUCKET_WEIGHT_LIMIT, which would need too
+	 * many buckets, is searched with BINARY_HEAP instead.
+	 */
+	BUCKET_QUEUE,
+
+	/**
+	 * Uses BUCKET_QUEUE when the largest edge weight in the graph is at most
+	 * SMALL_WEIGHT_LIMIT, and BINARY_HEAP otherwise.
+	 */
+	AUTO;
+
+	/**
+	 * The largest edge weight for which AUTO picks the bucket queue.
+	 */
+	public static final int SMALL_WEIGHT_LIMIT = 32;
+
+	/**
+	 * The largest edge weight for which BUCKET_QUEUE really uses a bucket queue.
+	 */
+	public static final int BUCKET_WEIGHT_LIMIT = 1 << 16;
+}
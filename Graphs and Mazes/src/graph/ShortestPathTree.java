@@ -0,0 +1,103 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <P>
+ * Everything that one run of DoDijsktra found: the lowest cost of reaching
+ * each vertex from the start vertex, and the vertex before it on a path of
+ * that cost. Both are kept in int arrays indexed by vertex number, so once
+ * the tree has been built, distanceTo takes O(1) time and pathTo takes time
+ * proportional to the length of the path, for any target, without searching
+ * the graph again.
+ * </P>
+ *
+ * <P>
+ * DoParallelBFS returns the same kind of tree, with the number of edges on a
+ * path in place of its cost.
+ * </P>
+ *
+ * <P>
+ * The tree describes the graph as it was when DoDijsktra ran. Vertices added
+ * to the graph afterwards are treated as unreachable.
+ * </P>
+ *
+ * @param <V> type of the vertices
+ */
+public final class ShortestPathTree<V> {
+
+	private final IndexedGraph<V> graph;
+	private final V start;
+
+	/*
+	 * cost[i] is Integer.MAX_VALUE and predecessor[i] is -1 for every vertex that
+	 * was not reached. The arrays are owned by the tree.
+	 */
+	private final int[] cost;
+	private final int[] predecessor;
+
+	ShortestPathTree(IndexedGraph<V> graph, V start, int[] cost, int[] predecessor) {
+		this.graph = graph;
+		this.start = start;
+		this.cost = cost;
+		this.predecessor = predecessor;
+	}
+
+	/**
+	 * @return vertex where every path in the tree begins
+	 */
+	public V getStart() {
+		return start;
+	}
+
+	/**
+	 * @param target any vertex of the graph
+	 * @return true if the target can be reached from the start
+	 * @throws IllegalArgumentException if the target is not in the graph
+	 */
+	public boolean hasPathTo(V target) {
+		int index = indexOf(target);
+		return index < cost.length && cost[index] != Integer.MAX_VALUE;
+	}
+
+	/**
+	 * @param target any vertex of the graph
+	 * @return the lowest cost of a path from the start to the target, or -1 if
+	 *         the target cannot be reached
+	 * @throws IllegalArgumentException if the target is not in the graph
+	 */
+	public int distanceTo(V target) {
+		return hasPathTo(target) ? cost[indexOf(target)] : -1;
+	}
+
+	/**
+	 * Returns the path in the same format that DoDijsktra passes to
+	 * notifyDijkstraIsOver: the first vertex is the start, the last vertex is the
+	 * target, and the list is empty if the target cannot be reached.
+	 *
+	 * @param target any vertex of the graph
+	 * @return the lowest-cost path from the start to the target
+	 * @throws IllegalArgumentException if the target is not in the graph
+	 */
+	public List<V> pathTo(V target) {
+		ArrayList<V> path = new ArrayList<V>();
+		if (hasPathTo(target)) {
+			// the path is made backwards, starting at the target
+			for (int curr = indexOf(target); curr != -1; curr = predecessor[curr]) {
+				path.add(graph.getVertex(curr));
+			}
+			Collections.reverse(path);
+		}
+		return path;
+	}
+
+	private int indexOf(V vertex) {
+		int index = graph.getIndex(vertex);
+		if (index == -1) {
+			throw new IllegalArgumentException();
+		}
+		return index;
+	}
+}
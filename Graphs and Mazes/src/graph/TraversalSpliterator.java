@@ -0,0 +1,101 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * <P>
+ * The vertices of a Breadth-First or Depth-First-Search, handed out one at a
+ * time in the order DoBFS or DoDFS would visit them. See
+ * AbstractIndexedGraph.bfs and AbstractIndexedGraph.dfs.
+ * </P>
+ *
+ * <P>
+ * Nothing is searched ahead of time: each call to tryAdvance expands just
+ * enough of the graph to find the next vertex. The queue (or stack) and the
+ * set of marked vertices start small and grow with the part of the graph that
+ * has been walked, so stopping early leaves the rest of the graph untouched.
+ * </P>
+ *
+ * @param <V> type of the vertices
+ */
+final class TraversalSpliterator<V> extends Spliterators.AbstractSpliterator<V> {
+
+	private final IndexedGraph<V> graph;
+	private final boolean depthFirst;
+	private final EdgeBuffer edges = new EdgeBuffer();
+
+	/*
+	 * Breadth-first marks a vertex when it is queued, so it is queued only once
+	 * and "head" is the next one to visit. Depth-first marks a vertex when it is
+	 * visited and may push it once per edge, so "head" is unused and stale
+	 * entries are skipped when popped (exactly as in DoDFS).
+	 */
+	private final BitSet marked = new BitSet();
+	private int[] vertices = new int[16];
+	private int head;
+	private int tail;
+
+	TraversalSpliterator(IndexedGraph<V> graph, int first, boolean depthFirst) {
+		super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+		this.graph = graph;
+		this.depthFirst = depthFirst;
+		vertices[tail++] = first;
+		if (!depthFirst) {
+			marked.set(first);
+		}
+	}
+
+	public boolean tryAdvance(Consumer<? super V> action) {
+		int next = depthFirst ? pop() : poll();
+		if (next == -1) {
+			return false;
+		}
+		graph.getEdges(next, edges);
+		for (int i = 0; i < edges.size(); i++) {
+			int neighbor = edges.getTarget(i);
+			if (!marked.get(neighbor)) {
+				if (!depthFirst) {
+					marked.set(neighbor);
+				}
+				push(neighbor);
+			}
+		}
+		action.accept(graph.getVertex(next));
+		return true;
+	}
+
+	// the next vertex in breadth-first order, or -1 if there are none left
+	private int poll() {
+		return head < tail ? vertices[head++] : -1;
+	}
+
+	// the next vertex in depth-first order, or -1 if there are none left
+	private int pop() {
+		while (tail > 0) {
+			int top = vertices[--tail];
+			if (!marked.get(top)) {
+				marked.set(top);
+				return top;
+			}
+		}
+		return -1;
+	}
+
+	private void push(int vertex) {
+		if (tail == vertices.length) {
+			if (head > vertices.length / 2) {
+				// the front of a breadth-first queue has been used up; reuse it
+				System.arraycopy(vertices, head, vertices, 0, tail - head);
+				tail -= head;
+				head = 0;
+			} else {
+				vertices = Arrays.copyOf(vertices, 2 * vertices.length);
+			}
+		}
+		vertices[tail++] = vertex;
+	}
+}
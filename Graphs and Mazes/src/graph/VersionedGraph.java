@@ -0,0 +1,287 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * <P>
+ * A directed, weighted graph with the same operations as WeightedGraph that
+ * keeps multiple versions (MVCC): every change publishes a new, immutable
+ * GraphVersion, and every search runs on the version that was newest when it
+ * started. A DoDijsktra that takes seconds therefore sees one consistent graph
+ * from beginning to end, reads it without any locking, and never holds up the
+ * threads changing the graph; they do not wait for it either.
+ * </P>
+ *
+ * <P>
+ * Changes are made one at a time (writers take turns on a lock that searches
+ * never touch) and copy only the small segments of the graph they touch; see
+ * GraphVersion. getCurrentVersion() pins the newest version, to run several
+ * searches on exactly the same graph. A version that no search holds any more
+ * and that is no longer the newest is reclaimed by the garbage collector; the
+ * graph itself only ever refers to the newest one.
+ * </P>
+ *
+ * <P>
+ * Finding an edge walks the edges of its vertex, so adding and looking up
+ * edges costs time in proportion to the vertex's degree. The graph suits
+ * road-network and maze-like graphs, where degrees are small.
+ * </P>
+ *
+ * @param <V> type of the vertices
+ */
+public class VersionedGraph<V> extends AbstractIndexedGraph<V> {
+
+	private static final int[] NO_EDGES = new int[0];
+
+	/*
+	 * Every vertex ever added, shared by all versions (each ignores the vertices
+	 * added after it). A vertex is put here before the version that contains it
+	 * is published.
+	 */
+	private final ConcurrentHashMap<V, Integer> vertexIndex;
+	private volatile GraphVersion<V> current;
+	private final Object writeLock = new Object();
+
+	/**
+	 * Initialize the graph to "empty", as version 0.
+	 */
+	public VersionedGraph() {
+		super(new CopyOnWriteArraySet<GraphAlgorithmObserver<V>>(), new CopyOnWriteArraySet<SearchStatsListener>());
+		vertexIndex = new ConcurrentHashMap<V, Integer>();
+		current = new GraphVersion<V>(0, vertexIndex, new GraphVersion.Directory[0], 0, 0, Integer.MAX_VALUE,
+				observers(), statsListeners());
+	}
+
+	/**
+	 * Add a vertex to the graph, publishing a new version. If the vertex is
+	 * already in the graph, throw an IllegalArgumentException.
+	 *
+	 * @param vertex vertex to be added to the graph
+	 * @throws IllegalArgumentException if the vertex is already in the graph
+	 */
+	public void addVertex(V vertex) {
+		synchronized (writeLock) {
+			if (vertexIndex.containsKey(vertex)) {
+				throw new IllegalArgumentException();
+			}
+			GraphVersion<V> old = current;
+			long stamp = old.getVersion() + 1;
+			int index = old.getVertexCount();
+			GraphVersion.Directory[] directories = directoriesFor(old, index + 1);
+			GraphVersion.Segment segment = writable(directories, index, stamp);
+			int row = index & (GraphVersion.SEGMENT_SIZE - 1);
+			segment.vertices[row] = vertex;
+			segment.targets[row] = NO_EDGES;
+			segment.weights[row] = NO_EDGES;
+			segment.sources[row] = NO_EDGES;
+			segment.reverseWeights[row] = NO_EDGES;
+			vertexIndex.put(vertex, index);
+			publish(stamp, directories, index + 1, old.getMaxEdgeWeight(), old.lowestWeight());
+		}
+	}
+
+	/**
+	 * Searches for a given vertex.
+	 *
+	 * @param vertex the vertex we are looking for
+	 * @return true if the vertex is in the graph, false otherwise.
+	 */
+	public boolean containsVertex(V vertex) {
+		return current.containsVertex(vertex);
+	}
+
+	/**
+	 * Add an edge from one vertex of the graph to another, with the weight
+	 * specified, replacing any edge between them, and publish a new version. See
+	 * WeightedGraph.addEdge.
+	 *
+	 * @param from   the vertex the edge leads from
+	 * @param to     the vertex the edge leads to
+	 * @param weight the (non-negative) weight of this edge
+	 * @throws IllegalArgumentException when either vertex is not in the graph, or
+	 *                                  the weight is negative.
+	 */
+	public void addEdge(V from, V to, Integer weight) {
+		synchronized (writeLock) {
+			GraphVersion<V> old = current;
+			int source = old.getIndex(from);
+			int target = old.getIndex(to);
+			if (source == -1 || target == -1 || weight < 0) {
+				throw new IllegalArgumentException();
+			}
+			long stamp = old.getVersion() + 1;
+			GraphVersion.Directory[] directories = directoriesFor(old, old.getVertexCount());
+
+			GraphVersion.Segment segment = writable(directories, source, stamp);
+			int row = source & (GraphVersion.SEGMENT_SIZE - 1);
+			int position = GraphVersion.find(segment.targets[row], target);
+			if (position == -1) {
+				segment.targets[row] = append(segment.targets[row], target);
+				segment.weights[row] = append(segment.weights[row], weight);
+			} else {
+				segment.weights[row] = replace(segment.weights[row], position, weight);
+			}
+
+			segment = writable(directories, target, stamp);
+			row = target & (GraphVersion.SEGMENT_SIZE - 1);
+			position = GraphVersion.find(segment.sources[row], source);
+			if (position == -1) {
+				segment.sources[row] = append(segment.sources[row], source);
+				segment.reverseWeights[row] = append(segment.reverseWeights[row], weight);
+			} else {
+				segment.reverseWeights[row] = replace(segment.reverseWeights[row], position, weight);
+			}
+			publish(stamp, directories, old.getVertexCount(), Math.max(old.getMaxEdgeWeight(), weight),
+					Math.min(old.lowestWeight(), weight));
+		}
+	}
+
+	/**
+	 * Returns weight of the edge connecting one vertex to another in the newest
+	 * version. Returns null if the edge does not exist.
+	 *
+	 * @param from vertex where edge begins
+	 * @param to   vertex where edge terminates
+	 * @return weight of the edge, or null if there is no edge connecting these
+	 *         vertices
+	 * @throws IllegalArgumentException if either of the vertices specified are not
+	 *                                  in the graph.
+	 */
+	public Integer getWeight(V from, V to) {
+		return current.getWeight(from, to);
+	}
+
+	/**
+	 * Returns the newest version of the graph. It never changes, so every search
+	 * run on it sees the same graph, and it stays in memory for as long as it is
+	 * held.
+	 *
+	 * @return the newest version
+	 */
+	public GraphVersion<V> getCurrentVersion() {
+		return current;
+	}
+
+	/**
+	 * @return the number of the newest version, which increases with every
+	 *         change
+	 */
+	public long getVersion() {
+		return current.getVersion();
+	}
+
+	/**
+	 * Returns the smallest weight that has been given to any edge of this graph,
+	 * or 0 if there are no edges.
+	 *
+	 * @return a lower bound on the weight of every edge in the graph
+	 */
+	public int getMinEdgeWeight() {
+		return current.getMinEdgeWeight();
+	}
+
+	/**
+	 * Compiles the newest version into a GraphSnapshot.
+	 *
+	 * @return a compact copy of the newest version
+	 */
+	public GraphSnapshot<V> freeze() {
+		return current.freeze();
+	}
+
+	/*
+	 * The methods below read whichever version is newest at the moment of each
+	 * call; the algorithms instead pin one version for the whole search.
+	 */
+
+	public int getVertexCount() {
+		return current.getVertexCount();
+	}
+
+	public V getVertex(int index) {
+		return current.getVertex(index);
+	}
+
+	public int getIndex(V vertex) {
+		return current.getIndex(vertex);
+	}
+
+	public void getEdges(int from, EdgeBuffer edges) {
+		current.getEdges(from, edges);
+	}
+
+	public void getReverseEdges(int to, EdgeBuffer edges) {
+		current.getReverseEdges(to, edges);
+	}
+
+	public int getMaxEdgeWeight() {
+		return current.getMaxEdgeWeight();
+	}
+
+	IndexedGraph<V> searchGraph() {
+		return current;
+	}
+
+	/*
+	 * A new top-level array for the version being built, with room for
+	 * vertexCount vertices. It still shares every directory with the old
+	 * version.
+	 */
+	private static GraphVersion.Directory[] directoriesFor(GraphVersion<?> old, int vertexCount) {
+		int needed = (vertexCount + GraphVersion.SEGMENT_SIZE * GraphVersion.DIRECTORY_SIZE - 1)
+				>>> (GraphVersion.SEGMENT_BITS + GraphVersion.DIRECTORY_BITS);
+		return Arrays.copyOf(old.directories(), Math.max(needed, old.directories().length));
+	}
+
+	/*
+	 * The segment holding "vertex", which the version with number "stamp" may
+	 * change. Anything the old version shares on the way to it (directory or
+	 * segment) is copied first, unless this version already made its own copy.
+	 */
+	private static GraphVersion.Segment writable(GraphVersion.Directory[] directories, int vertex, long stamp) {
+		int d = vertex >>> (GraphVersion.SEGMENT_BITS + GraphVersion.DIRECTORY_BITS);
+		GraphVersion.Directory directory = directories[d];
+		if (directory == null) {
+			directory = new GraphVersion.Directory(stamp, new GraphVersion.Segment[GraphVersion.DIRECTORY_SIZE]);
+			directories[d] = directory;
+		} else if (directory.stamp != stamp) {
+			directory = directory.copy(stamp);
+			directories[d] = directory;
+		}
+		int s = (vertex >>> GraphVersion.SEGMENT_BITS) & (GraphVersion.DIRECTORY_SIZE - 1);
+		GraphVersion.Segment segment = directory.segments[s];
+		if (segment == null) {
+			segment = new GraphVersion.Segment(stamp);
+			directory.segments[s] = segment;
+		} else if (segment.stamp != stamp) {
+			segment = segment.copy(stamp);
+			directory.segments[s] = segment;
+		}
+		return segment;
+	}
+
+	/*
+	 * Makes the version being built the newest. Writing "current" (a volatile)
+	 * after every change to the copies makes them visible to any thread that
+	 * reads the new version from it.
+	 */
+	private void publish(long stamp, GraphVersion.Directory[] directories, int vertexCount, int maxEdgeWeight,
+			int minEdgeWeight) {
+		current = new GraphVersion<V>(stamp, vertexIndex, directories, vertexCount, maxEdgeWeight, minEdgeWeight,
+				observers(), statsListeners());
+	}
+
+	private static int[] append(int[] row, int value) {
+		int[] longer = Arrays.copyOf(row, row.length + 1);
+		longer[row.length] = value;
+		return longer;
+	}
+
+	private static int[] replace(int[] row, int position, int value) {
+		int[] changed = row.clone();
+		changed[position] = value;
+		return changed;
+	}
+}
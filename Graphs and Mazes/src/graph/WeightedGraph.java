@@ -2,13 +2,9 @@ package graph;
 
 import java.util.Map;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Queue;
-import java.util.Set;
-import java.util.Stack;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -22,34 +18,122 @@ import java.util.List;
  * notified during the performance of the graph algorithms to update the
  * observers on how the algorithms are progressing.
  * </P>
+ * 
+ * <P>
+ * Every vertex is given an index in the order it is added, which lets the
+ * graph be used as an IndexedGraph. A graph that is finished changing can be
+ * compiled into a compact, read-only GraphSnapshot with freeze(), or into a
+ * ContractionHierarchy for fast point-to-point queries with contract(). A
+ * graph that is made all at once is quicker to put together with a
+ * GraphBuilder.
+ * </P>
+ * 
+ * <P>
+ * getShortestPathTree keeps the shortest-path trees of the most recently used
+ * start vertices, so repeated route lookups from the same few vertices only
+ * cost the walk along the path. Every change to the graph increases its
+ * version number, and a tree built for an older version is never handed out.
+ * </P>
  */
-public class WeightedGraph<V> {
+public class WeightedGraph<V> extends AbstractIndexedGraph<V> {
 
 	private Map<V, Map<V, Integer>> weightedGraph;
 
 	/*
-	 * Collection of observers. The graph algorithms (DFS, BFS, and Dijkstra) will
-	 * notify these observers to let them know how the algorithms are progressing.
+	 * The same edges, indexed the other way around: reverseGraph.get(to) maps
+	 * each vertex with an edge into "to" to the weight of that edge. addEdge
+	 * keeps both maps up to date.
+	 */
+	private Map<V, Map<V, Integer>> reverseGraph;
+
+	/*
+	 * Every vertex gets a dense index (0, 1, 2, ...) in the order it is added.
+	 * vertexList.get(i) is the vertex with index i, and vertexIndex maps each
+	 * vertex back to its index, so the algorithms can keep their bookkeeping in
+	 * arrays and BitSets instead of hash-based collections.
+	 */
+	private Map<V, Integer> vertexIndex;
+	private List<V> vertexList;
+
+	/*
+	 * Largest weight ever given to an edge. Dijkstra's algorithm uses this to
+	 * decide whether a bucket queue can be used instead of a heap.
+	 */
+	private int maxEdgeWeight;
+
+	/*
+	 * Smallest weight ever given to an edge (Integer.MAX_VALUE while there are
+	 * no edges). A* heuristics use this to scale their estimates.
+	 */
+	private int minEdgeWeight = Integer.MAX_VALUE;
+
+	/**
+	 * The number of shortest-path trees getShortestPathTree keeps unless
+	 * setTreeCacheCapacity is called.
+	 */
+	public static final int DEFAULT_TREE_CACHE_CAPACITY = 8;
+
+	/*
+	 * Increased by every addVertex and addEdge. Each cached tree remembers the
+	 * version it was built for, and is thrown away when that is out of date.
+	 */
+	private long version;
+
+	/*
+	 * Shortest-path trees by start vertex, least recently used first. Once there
+	 * are more than treeCacheCapacity, the least recently used one is dropped.
 	 */
-	private Collection<GraphAlgorithmObserver<V>> observerList;
+	private int treeCacheCapacity = DEFAULT_TREE_CACHE_CAPACITY;
+	private Map<V, CachedTree<V>> treeCache;
 
 	/**
-	 * Initialize the data structures to "empty", including the collection of
-	 * GraphAlgorithmObservers (observerList).
+	 * Initialize the data structures to "empty". (The collection of
+	 * GraphAlgorithmObservers is set up by AbstractIndexedGraph.)
 	 */
 	public WeightedGraph() {
 		weightedGraph = new HashMap<V, Map<V, Integer>>();
-		observerList = new HashSet<GraphAlgorithmObserver<V>>();
+		reverseGraph = new HashMap<V, Map<V, Integer>>();
+		vertexIndex = new HashMap<V, Integer>();
+		vertexList = new ArrayList<V>();
+		treeCache = newTreeCache();
 	}
 
 	/**
-	 * Add a GraphAlgorithmObserver to the collection maintained by this graph
-	 * (observerList).
+	 * Initialize the graph with the vertices and edges collected by a
+	 * GraphBuilder, as if they had been added one by one with addVertex and
+	 * addEdge. Every map is made at its final size, so none is rehashed while
+	 * it is filled. Normally called through GraphBuilder.build(); subclasses
+	 * that build themselves from something else (see MazeGraph) call it
+	 * directly.
 	 * 
-	 * @param observer
+	 * @param builder holds the vertices and edges of the graph
 	 */
-	public void addObserver(GraphAlgorithmObserver<V> observer) {
-		observerList.add(observer);
+	protected WeightedGraph(GraphBuilder<V> builder) {
+		List<V> vertices = builder.vertices();
+		int vertexCount = vertices.size();
+		int edgeCount = builder.getEdgeCount();
+		int[] sources = builder.sources();
+		int[] targets = builder.targets();
+		int[] weights = builder.weights();
+
+		weightedGraph = new HashMap<V, Map<V, Integer>>(GraphBuilder.capacityFor(vertexCount));
+		reverseGraph = new HashMap<V, Map<V, Integer>>(GraphBuilder.capacityFor(vertexCount));
+		vertexIndex = new HashMap<V, Integer>(GraphBuilder.capacityFor(vertexCount));
+		vertexList = new ArrayList<V>(vertices);
+		treeCache = newTreeCache();
+
+		List<Map<V, Integer>> edges = edgeMaps(vertices, sources, targets, weights, edgeCount);
+		List<Map<V, Integer>> reverseEdges = edgeMaps(vertices, targets, sources, weights, edgeCount);
+		for (int i = 0; i < vertexCount; i++) {
+			weightedGraph.put(vertices.get(i), edges.get(i));
+			reverseGraph.put(vertices.get(i), reverseEdges.get(i));
+			vertexIndex.put(vertices.get(i), i);
+		}
+		for (int edge = 0; edge < edgeCount; edge++) {
+			maxEdgeWeight = Math.max(maxEdgeWeight, weights[edge]);
+			minEdgeWeight = Math.min(minEdgeWeight, weights[edge]);
+		}
+		version = vertexCount + edgeCount;
 	}
 
 	/**
@@ -66,6 +150,10 @@ public class WeightedGraph<V> {
 
 		} else {
 			weightedGraph.put(vertex, new HashMap<V, Integer>());
+			reverseGraph.put(vertex, new HashMap<V, Integer>());
+			vertexIndex.put(vertex, vertexList.size());
+			vertexList.add(vertex);
+			version++;
 
 		}
 	}
@@ -98,19 +186,19 @@ public class WeightedGraph<V> {
 	 *                                  the weight is negative.
 	 */
 	public void addEdge(V from, V to, Integer weight) {
+		Map<V, Integer> edges = weightedGraph.get(from);
+		Map<V, Integer> reverseEdges = reverseGraph.get(to);
 
-		// if vertex does not exist, throw an exception
-		if (weightedGraph.containsKey(from) != true || weightedGraph.containsKey(to) != true) {
-			throw new IllegalArgumentException();
-
-			// if the weight is negative, throw and exception
-		} else if (weight < 0) {
+		// if vertex does not exist, or the weight is negative, throw an exception
+		if (edges == null || reverseEdges == null || weight < 0) {
 			throw new IllegalArgumentException();
 
 		} else {
-			Map<V, Integer> value = weightedGraph.get(from);
-			value.put(to, weight);
-			weightedGraph.put(from, value);
+			edges.put(to, weight);
+			reverseEdges.put(from, weight);
+			maxEdgeWeight = Math.max(maxEdgeWeight, weight);
+			minEdgeWeight = Math.min(minEdgeWeight, weight);
+			version++;
 
 		}
 	}
@@ -144,215 +232,207 @@ public class WeightedGraph<V> {
 	}
 
 	/**
-	 * <P>
-	 * This method will perform a Breadth-First-Search on the graph. The search will
-	 * begin at the "start" vertex and conclude once the "end" vertex has been
-	 * reached. Just after a particular vertex is visited, this method will go
-	 * through the collection of observers calling notifyVisit on each one (passing
-	 * in the vertex being visited as the argument.) After the "end" vertex has been
-	 * visited, this method will go through the collection of observers calling
-	 * notifySearchIsOver on each one, after which the method should terminate
-	 * immediately, without processing further vertices.
+	 * Returns the largest weight that has been given to any edge of this graph,
+	 * or 0 if there are no edges. (If an edge is later replaced by one with a
+	 * smaller weight, the old weight still counts.)
 	 * 
-	 * @param start vertex where search begins
-	 * @param end   the algorithm terminates just after this vertex is visited
+	 * @return an upper bound on the weight of every edge in the graph
 	 */
-	public void DoBFS(V start, V end) {
+	public int getMaxEdgeWeight() {
+		return maxEdgeWeight;
+	}
 
-		List<V> visitedSet = new ArrayList<V>();
-		Queue<V> discoveredQueue = new LinkedList<V>();
+	/**
+	 * Returns the smallest weight that has been given to any edge of this graph,
+	 * or 0 if there are no edges. (If an edge is later replaced by one with a
+	 * larger weight, the old weight still counts.)
+	 * 
+	 * @return a lower bound on the weight of every edge in the graph
+	 */
+	public int getMinEdgeWeight() {
+		return minEdgeWeight == Integer.MAX_VALUE ? 0 : minEdgeWeight;
+	}
 
-		discoveredQueue.add(start); // add one into discovered
+	/**
+	 * Returns the version number of this graph, which increases every time a
+	 * vertex or an edge is added.
+	 * 
+	 * @return the current version of the graph
+	 */
+	public long getVersion() {
+		return version;
+	}
 
-		/*
-		 * Before the search begins, this method will go through the collection of
-		 * Observers, calling notifyBFSHasBegun on each one.
-		 */
-		for (GraphAlgorithmObserver<V> e : observerList) {
-			e.notifyBFSHasBegun();
+	/**
+	 * Returns the lowest costs of, and paths to, every vertex reachable from
+	 * "start", as DoDijsktra would. The tree is taken from the cache if one was
+	 * built for "start" since the graph last changed; otherwise Dijkstra's
+	 * algorithm is run (without notifying the observers) and the new tree is
+	 * cached, dropping the least recently used one if the cache is full.
+	 * 
+	 * @param start vertex where every path begins
+	 * @return the shortest-path tree from start
+	 * @throws IllegalArgumentException if the start vertex is not in the graph
+	 */
+	public ShortestPathTree<V> getShortestPathTree(V start) {
+		CachedTree<V> cached = treeCache.get(start);
+		if (cached != null && cached.version == version) {
+			return cached.tree;
 		}
-
-		// while the discovered queue is not empty
-		while (!discoveredQueue.isEmpty()) {
-			// take from discoverQueue and remove it
-			V key = discoveredQueue.poll();
-			//// if the key
-			if (!visitedSet.contains(key)) {
-				
-				if (key.equals(end)) {
-					for (GraphAlgorithmObserver<V> e : observerList) {
-						e.notifySearchIsOver();
-					}
-					return;
-				}
-
-				for (GraphAlgorithmObserver<V> e : observerList) {
-					e.notifyVisit(key);
-				}
-				 // add key to visited set
-				visitedSet.add(key);
-				
-				Map<V, Integer> neighbors = weightedGraph.get(key); // get the neighbors
-
-				for (V vertex : neighbors.keySet()) {
-					if (!visitedSet.contains(vertex)) {
-						discoveredQueue.add(vertex);
-					}
-				}
-			}
+		ShortestPathTree<V> tree = GraphAlgorithms.dijkstra(this,
+				Collections.<GraphAlgorithmObserver<V>>emptyList(), start, start, ShortestPathEngine.AUTO, null);
+		if (treeCacheCapacity > 0) {
+			treeCache.put(start, new CachedTree<V>(version, tree));
 		}
+		return tree;
 	}
 
 	/**
-	 * This method will perform a Depth-First-Search on the graph. The search will
-	 * begin at the "start" vertex and conclude once the "end" vertex has been
-	 * reached. Before the search begins, this method will go through the collection
-	 * of Observers, calling notifyDFSHasBegun on each one. Just after a particular
-	 * vertex is visited, this method will go through the collection of observers
-	 * calling notifyVisit on each one (passing in the vertex being visited as the
-	 * argument). After the "end" vertex has been visited, this method will go
-	 * through the collection of observers calling notifySearchIsOver on each one,
-	 * after which the method should terminate immediately, without visiting further
-	 * vertices.
+	 * Sets how many shortest-path trees getShortestPathTree keeps. Each tree
+	 * takes two ints per vertex. If the cache holds more trees than the new
+	 * capacity, the least recently used ones are dropped; a capacity of 0 turns
+	 * the cache off.
 	 * 
-	 * @param start vertex where search begins
-	 * @param end   the algorithm terminates just after this vertex is visited
+	 * @param capacity largest number of trees to keep
+	 * @throws IllegalArgumentException if the capacity is negative
 	 */
-	public void DoDFS(V start, V end) {
-
-		for (GraphAlgorithmObserver<V> e : observerList) {
-			e.notifyDFSHasBegun();
+	public void setTreeCacheCapacity(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException();
 		}
-		ArrayList<V> visitedSet = new ArrayList<>();
-		Stack<V> stack = new Stack<V>();
-		Set<V> adjacents;
-
-		stack.push(start);
-		while (!stack.isEmpty()) {
-			V key = stack.pop();
-			// if the key hasn't been visited yet, go visit it
-			if (!visitedSet.contains(key)) {
-				
-				// If key is equal to the end, notify that the search is over
-				if (key.equals(end)) {
-					
-					for (GraphAlgorithmObserver<V> e : observerList) {
-						e.notifySearchIsOver();
-					} // leave
-					return;
-				}
-				// notify that you are visiting the key
-				for (GraphAlgorithmObserver<V> e : observerList) {
-					e.notifyVisit(key);
-				}
-				// add the key to the visited set
-				visitedSet.add(key);
-
-				adjacents = weightedGraph.get(key).keySet();
-				for (V vertex : adjacents) {
-					if (!visitedSet.contains(vertex)) {
-						stack.push(vertex);
-					}
-				}
-			}
+		treeCacheCapacity = capacity;
+		while (treeCache.size() > capacity) {
+			treeCache.remove(treeCache.keySet().iterator().next());
 		}
 	}
 
 	/**
-	 * Perform Dijkstra's algorithm, beginning at the "start" vertex. The algorithm
-	 * DOES NOT terminate when the "end" vertex is reached. It will continue until
-	 * EVERY vertex in the graph has been added to the finished set. Before the
-	 * algorithm begins, this method goes through the collection of Observers,
-	 * calling notifyDijkstraHasBegun on each Observer. Each time a vertex is added
-	 * to the "finished set", this method goes through the collection of Observers,
-	 * calling notifyDijkstraVertexFinished on each one (passing the vertex that was
-	 * just added to the finished set as the first argument, and the optimal "cost"
-	 * of the path leading to that vertex as the second argument.) After all of the
-	 * vertices have been added to the finished set, the algorithm will calculate
-	 * the "least cost" path of vertices leading from the starting vertex to the
-	 * ending vertex. Next, it will go through the collection of observers, calling
-	 * notifyDijkstraIsOver on each one, passing in as the argument the "lowest
-	 * cost" sequence of vertices that leads from start to end (I.e. the first
-	 * vertex in the list will be the "start" vertex, and the last vertex in the
-	 * list will be the "end" vertex.)
+	 * <P>
+	 * Compiles the current contents of this graph into an immutable
+	 * GraphSnapshot. The snapshot stores every edge in three flat int arrays
+	 * (compressed sparse rows), which takes a fraction of the memory of this
+	 * graph's nested maps and lets the algorithms walk a vertex's neighbors
+	 * sequentially. Changes made to this graph afterwards do not affect the
+	 * snapshot.
+	 * </P>
+	 * 
+	 * <P>
+	 * Vertices keep the same indices and their edges stay in the same order, so
+	 * the algorithms report exactly the same events on the snapshot as on this
+	 * graph.
+	 * </P>
+	 * 
+	 * @return a frozen copy of this graph
+	 */
+	public GraphSnapshot<V> freeze() {
+		return GraphSnapshot.copyOf(this);
+	}
+
+	/**
+	 * Preprocesses the current contents of this graph into a
+	 * ContractionHierarchy, which answers lowest-cost path queries between any
+	 * two vertices while searching only a small part of the graph. Changes made
+	 * to this graph afterwards do not affect the hierarchy.
 	 * 
-	 * @param start vertex where algorithm will start
-	 * @param end   special vertex used as the end of the path reported to observers
-	 *              via the notifyDijkstraIsOver method.
+	 * @return a contraction hierarchy of this graph
 	 */
-	public void DoDijsktra(V start, V end) {
+	public ContractionHierarchy<V> contract() {
+		return ContractionHierarchy.build(this);
+	}
+
+	public int getVertexCount() {
+		return vertexList.size();
+	}
+
+	public V getVertex(int index) {
+		return vertexList.get(index);
+	}
+
+	public int getIndex(V vertex) {
+		Integer index = vertexIndex.get(vertex);
+		return index == null ? -1 : index;
+	}
 
-		for (GraphAlgorithmObserver<V> e : observerList) {
-			e.notifyDijkstraHasBegun();
+	public void getEdges(int from, EdgeBuffer edges) {
+		edges.clear();
+		for (Map.Entry<V, Integer> edge : weightedGraph.get(vertexList.get(from)).entrySet()) {
+			edges.add(vertexIndex.get(edge.getKey()), edge.getValue());
 		}
+	}
 
-		Map<V, Integer> cost = new HashMap<V, Integer>();
-		Map<V, V> predecessor = new HashMap<V, V>();
-		ArrayList<V> visitedSet = new ArrayList<V>();
-		// to move the the start it costs zero
-		cost.put(start, 0);
-
-		// go through the vertex and set all of the weights to a large number
-		for (V curr : weightedGraph.keySet()) {
-			// if the current value is not start
-			if (!curr.equals(start)) {
-				cost.put(curr, 1000000);
-			} // set predecessors of all the vertexes to null
-			predecessor.put(curr, null);
+	public void getReverseEdges(int to, EdgeBuffer edges) {
+		edges.clear();
+		for (Map.Entry<V, Integer> edge : reverseGraph.get(vertexList.get(to)).entrySet()) {
+			edges.add(vertexIndex.get(edge.getKey()), edge.getValue());
 		}
+	}
 
-		// while the visitedSet is not equal to the total number of vertex
-		while (visitedSet.size() != weightedGraph.size()) {
-			int smallest = 1000000;
-			V next = null;
-			// go through all of the costs, find the smallest
-			for (V curr : cost.keySet()) {
-				// if the current vertex has not been visited, visit it
-				if (!visitedSet.contains(curr)) {
-					// comparing cost of current and smallest
-					if (cost.get(curr) < smallest) {
-						// if smaller, replace the smallest with current vertex
-						smallest = cost.get(curr);
-						// next vertex is being visited
-						next = curr;
-					}
-				}
-			}
-			// notifying that the next vertex has been visited and adding it to the
-			// visitedSet
-			visitedSet.add(next);
-			for (GraphAlgorithmObserver<V> e : observerList) {
-				e.notifyDijkstraVertexFinished(next, cost.get(next));
+	/*
+	 * For each vertex, a map from the vertex at the other end of each of its
+	 * edges to the weight: keys[edge] is the index of the vertex whose map the
+	 * edge goes in, values[edge] that of the other end. The maps are made big
+	 * enough never to rehash and filled in the order the edges were added. An
+	 * edge added twice is counted twice, which can leave a map with a bigger
+	 * table than one grown entry by entry; such a map is filled again at its
+	 * real size, so it lists its edges in the same order as addEdge would.
+	 */
+	private static <V> List<Map<V, Integer>> edgeMaps(List<V> vertices, int[] keys, int[] values, int[] weights,
+			int edgeCount) {
+		int[] degree = new int[vertices.size()];
+		for (int edge = 0; edge < edgeCount; edge++) {
+			degree[keys[edge]]++;
+		}
+		List<Map<V, Integer>> maps = new ArrayList<Map<V, Integer>>(vertices.size());
+		for (int i = 0; i < vertices.size(); i++) {
+			maps.add(new HashMap<V, Integer>(GraphBuilder.capacityFor(degree[i])));
+		}
+		fillEdgeMaps(maps, null, vertices, keys, values, weights, edgeCount);
+
+		boolean[] again = new boolean[vertices.size()];
+		boolean any = false;
+		for (int i = 0; i < vertices.size(); i++) {
+			if (maps.get(i).size() != degree[i]) {
+				maps.set(i, new HashMap<V, Integer>(GraphBuilder.capacityFor(maps.get(i).size())));
+				again[i] = true;
+				any = true;
 			}
+		}
+		if (any) {
+			fillEdgeMaps(maps, again, vertices, keys, values, weights, edgeCount);
+		}
+		return maps;
+	}
 
-			// Now doing the neighbors of that smallest
-			for (V curr : weightedGraph.get(next).keySet()) {
-				// if the visited set doesn't contain the current vertex
-				if (!visitedSet.contains(curr)) {
-					// Checking if the weight of the neighbor is smaller than smallest
-					if (cost.get(next) + this.getWeight(next, curr) < cost.get(curr)) {
-						cost.put(curr, cost.get(next) + this.getWeight(next, curr));
-
-						// if yes replace with neighbor
-						predecessor.put(curr, next);
-					}
-				}
+	// fills the maps of the vertices marked in "only", or of all if it is null
+	private static <V> void fillEdgeMaps(List<Map<V, Integer>> maps, boolean[] only, List<V> vertices, int[] keys,
+			int[] values, int[] weights, int edgeCount) {
+		for (int edge = 0; edge < edgeCount; edge++) {
+			if (only == null || only[keys[edge]]) {
+				maps.get(keys[edge]).put(vertices.get(values[edge]), weights[edge]);
 			}
 		}
-		// the path is made backwards, starting at the end
-		V curr = end;
-		// path is in a format that can be passed through the notify
-		ArrayList<V> path = new ArrayList<V>();
-		// while the path is not null
-		while (curr != null) {
-			// add the current vertex to the path
-			path.add(0, curr);
-			// move forward (backwards) in the path
-			curr = predecessor.get(path.get(0));
-		}
-		// method is over and is notified
-		for (GraphAlgorithmObserver<V> e : observerList) {
-			e.notifyDijkstraIsOver(path);
+	}
+
+	private Map<V, CachedTree<V>> newTreeCache() {
+		return new LinkedHashMap<V, CachedTree<V>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<V, CachedTree<V>> eldest) {
+				return size() > treeCacheCapacity;
+			}
+		};
+	}
+
+	/*
+	 * A cache entry: a tree and the version of the graph it was built for.
+	 */
+	private static class CachedTree<V> {
+		private final long version;
+		private final ShortestPathTree<V> tree;
+
+		private CachedTree(long version, ShortestPathTree<V> tree) {
+			this.version = version;
+			this.tree = tree;
 		}
 	}
 }
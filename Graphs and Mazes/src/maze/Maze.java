@@ -221,7 +221,17 @@ public class Maze {
 	 * @return true if there is a wall above this juncture
 	 */
 	public boolean isWallAbove(Juncture juncture) {
-		return wallToRight[juncture.getY()][juncture.getX()];
+		return isWallAbove(juncture.getX(), juncture.getY());
+	}
+
+	/** Returns true if there is a wall above the juncture at (x, y),
+	 * false otherwise.
+	 * @param x
+	 * @param y
+	 * @return true if there is a wall above this juncture
+	 */
+	public boolean isWallAbove(int x, int y) {
+		return wallToRight[y][x];
 	}
 
 	/** Returns true if there is a wall below the given juncture,
@@ -230,7 +240,17 @@ public class Maze {
 	 * @return true if there is a wall below this juncture
 	 */
 	public boolean isWallBelow(Juncture juncture) {
-		return wallToRight[juncture.getY()+ 1][juncture.getX()];
+		return isWallBelow(juncture.getX(), juncture.getY());
+	}
+
+	/** Returns true if there is a wall below the juncture at (x, y),
+	 * false otherwise.
+	 * @param x
+	 * @param y
+	 * @return true if there is a wall below this juncture
+	 */
+	public boolean isWallBelow(int x, int y) {
+		return wallToRight[y + 1][x];
 	}
 
 	/** Returns true if there is a wall to the left of the 
@@ -239,7 +259,17 @@ public class Maze {
 	 * @return true if there is a wall to the left of this juncture
 	 */
 	public boolean isWallToLeft(Juncture juncture) {
-		return wallDown[juncture.getY()][juncture.getX()];
+		return isWallToLeft(juncture.getX(), juncture.getY());
+	}
+
+	/** Returns true if there is a wall to the left of the 
+	 * juncture at (x, y), false otherwise.
+	 * @param x
+	 * @param y
+	 * @return true if there is a wall to the left of this juncture
+	 */
+	public boolean isWallToLeft(int x, int y) {
+		return wallDown[y][x];
 	}
 
 	/** Returns true if there is a wall to the right of the 
@@ -248,7 +278,51 @@ public class Maze {
 	 * @return true if there is a wall to the right of this juncture
 	 */
 	public boolean isWallToRight(Juncture juncture) {
-		return wallDown[juncture.getY()][juncture.getX() + 1];
+		return isWallToRight(juncture.getX(), juncture.getY());
+	}
+
+	/** Returns true if there is a wall to the right of the 
+	 * juncture at (x, y), false otherwise.
+	 * @param x
+	 * @param y
+	 * @return true if there is a wall to the right of this juncture
+	 */
+	public boolean isWallToRight(int x, int y) {
+		return wallDown[y][x + 1];
+	}
+
+	/** Puts a wall below the juncture at (x, y), or takes it away.
+	 * The walls around the outside of the maze cannot be changed.
+	 * (A MazeGraph that was already built from this maze does not
+	 * see the change.)
+	 * @param x
+	 * @param y
+	 * @param wall true to put up a wall, false to take it away
+	 * @throws IllegalArgumentException if (x, y) or the juncture
+	 * below it is not in the maze
+	 */
+	public void setWallBelow(int x, int y, boolean wall) {
+		if (x < 0 || x >= width - 1 || y < 0 || y >= height - 2) {
+			throw new IllegalArgumentException();
+		}
+		wallToRight[y + 1][x] = wall;
+	}
+
+	/** Puts a wall to the right of the juncture at (x, y), or takes
+	 * it away.  The walls around the outside of the maze cannot be
+	 * changed.  (A MazeGraph that was already built from this maze
+	 * does not see the change.)
+	 * @param x
+	 * @param y
+	 * @param wall true to put up a wall, false to take it away
+	 * @throws IllegalArgumentException if (x, y) or the juncture
+	 * to its right is not in the maze
+	 */
+	public void setWallToRight(int x, int y, boolean wall) {
+		if (x < 0 || x >= width - 2 || y < 0 || y >= height - 1) {
+			throw new IllegalArgumentException();
+		}
+		wallDown[y][x + 1] = wall;
 	}
 
 	/** Returns the weight between this juncture and the one above.
@@ -257,7 +331,18 @@ public class Maze {
 	 * @return a positive integer
 	 */
 	public int getWeightAbove(Juncture juncture) {
-		return horizontalWeights[juncture.getY() - 1][juncture.getX()];
+		return getWeightAbove(juncture.getX(), juncture.getY());
+	}
+
+	/** Returns the weight between the juncture at (x, y) and the 
+	 * one above.
+	 * 
+	 * @param x
+	 * @param y
+	 * @return a positive integer
+	 */
+	public int getWeightAbove(int x, int y) {
+		return horizontalWeights[y - 1][x];
 	}
 	
 	/** Returns the weight between this juncture and the one below.
@@ -266,7 +351,18 @@ public class Maze {
 	 * @return a positive integer
 	 */
 	public int getWeightBelow(Juncture juncture) {
-		return horizontalWeights[juncture.getY()][juncture.getX()];
+		return getWeightBelow(juncture.getX(), juncture.getY());
+	}
+
+	/** Returns the weight between the juncture at (x, y) and the 
+	 * one below.
+	 * 
+	 * @param x
+	 * @param y
+	 * @return a positive integer
+	 */
+	public int getWeightBelow(int x, int y) {
+		return horizontalWeights[y][x];
 	}
 
 	/** Returns the weight between this juncture and the one to its
@@ -276,7 +372,18 @@ public class Maze {
 	 * @return a positive integer
 	 */
 	public int getWeightToLeft(Juncture juncture) {
-		return verticalWeights[juncture.getY()][juncture.getX() - 1];
+		return getWeightToLeft(juncture.getX(), juncture.getY());
+	}
+
+	/** Returns the weight between the juncture at (x, y) and the 
+	 * one to its left.
+	 * 
+	 * @param x
+	 * @param y
+	 * @return a positive integer
+	 */
+	public int getWeightToLeft(int x, int y) {
+		return verticalWeights[y][x - 1];
 	}
 	
 	/** Returns the weight between this juncture and the one to its
@@ -286,6 +393,17 @@ public class Maze {
 	 * @return a positive integer
 	 */
 	public int getWeightToRight(Juncture juncture) {
-		return	verticalWeights[juncture.getY()][juncture.getX()];
+		return getWeightToRight(juncture.getX(), juncture.getY());
+	}
+
+	/** Returns the weight between the juncture at (x, y) and the 
+	 * one to its right.
+	 * 
+	 * @param x
+	 * @param y
+	 * @return a positive integer
+	 */
+	public int getWeightToRight(int x, int y) {
+		return	verticalWeights[y][x];
 	}
 }
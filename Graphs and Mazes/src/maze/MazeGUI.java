@@ -24,6 +24,8 @@ import javax.swing.JSlider;
 import javax.swing.JCheckBox;
 import javax.swing.WindowConstants;
 
+import graph.AsyncObserver;
+import graph.BackpressurePolicy;
 import graph.GraphAlgorithmObserver;
 import graph.MazeGraph;
 
@@ -69,6 +71,13 @@ public class MazeGUI {
 	private Collection<Juncture> coloredJunctures;
 	private boolean isDFS;
 
+	/* The animation below sleeps between steps, so it gets the events
+	 * on its own thread and the search itself is never held up by it
+	 * (until this many events are waiting).
+	 */
+	private static final int EVENT_BUFFER_SIZE = 1024;
+	private AsyncObserver<Juncture> searchObserver;
+
 	/** Creates and displays the GUI; constructs 
 	 * a maze to start things off.
 	 */
@@ -320,13 +329,19 @@ public class MazeGUI {
 	}
 
 	private void makeNewMaze() {
+		/* Drop whatever the last search has not drawn yet, without waiting
+		 * for the drawing thread, before the squares it draws on change
+		 */
+		if (searchObserver != null) {
+			searchObserver.shutdownNow();
+		}
 		int height = Integer.parseInt(heightBox.getText());
 		int width = Integer.parseInt(widthBox.getText());
 		maze = new Maze(height, width, 100 - densitySlider.getValue());
 		colorIndex = new int[height][width];
 		resetColorsOfSquares();
 		theGraph = new MazeGraph(maze);
-		theGraph.addObserver(new GraphAlgorithmObserver<Juncture>() {
+		searchObserver = new AsyncObserver<Juncture>(new GraphAlgorithmObserver<Juncture>() {
 			@Override
 			public void notifyBFSHasBegun() {
 				coloredJunctures = new ArrayList<Juncture>();
@@ -360,7 +375,7 @@ public class MazeGUI {
 				try {
 					Thread.sleep(getSliderDelayMS());
 				} catch(InterruptedException e) {
-
+					Thread.currentThread().interrupt();
 				}
 			}
 
@@ -395,7 +410,7 @@ public class MazeGUI {
 						try {
 							Thread.sleep(getSliderDelayMS());
 						} catch(InterruptedException e) {
-
+							Thread.currentThread().interrupt();
 						}
 						((Stack<Juncture>)coloredJunctures).pop();
 					}
@@ -405,7 +420,7 @@ public class MazeGUI {
 					try {
 						Thread.sleep(getSliderDelayMS());
 					} catch(InterruptedException e) {
-
+						Thread.currentThread().interrupt();
 					}
 					((Stack<Juncture>)coloredJunctures).push(juncture);
 				} else {   // BFS
@@ -428,13 +443,14 @@ public class MazeGUI {
 					try {
 						Thread.sleep(getSliderDelayMS());
 					} catch(InterruptedException e) {
-
+						Thread.currentThread().interrupt();
 					}
 					coloredJunctures.add(juncture);
 				}
 			}
 
-		});
+		}, EVENT_BUFFER_SIZE, BackpressurePolicy.BLOCK);
+		theGraph.addObserver(searchObserver);
 		DFSButton.setEnabled(true);
 		BFSButton.setEnabled(true);
 		DFSButton.grabFocus();
@@ -2,14 +2,45 @@ package tests;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.junit.Test;
 
+import graph.AsyncObserver;
+import graph.BackpressurePolicy;
+import graph.CompactWeightedGraph;
+import graph.ConcurrentWeightedGraph;
+import graph.ContractionHierarchy;
+import graph.GraphAlgorithmObserver;
+import graph.GraphBuilder;
+import graph.GraphEvent;
+import graph.GraphEventListener;
+import graph.GraphSnapshot;
+import graph.GraphVersion;
+import graph.Heuristic;
+import graph.LandmarkSelection;
+import graph.Landmarks;
+import graph.MazeGraph;
+import graph.MazeGridGraph;
+import graph.MazeHierarchy;
+import graph.Query;
+import graph.SearchStats;
+import graph.SearchStatsListener;
+import graph.SearchWorkspace;
+import graph.ShortestPath;
+import graph.ShortestPathEngine;
+import graph.ShortestPathTree;
+import graph.VersionedGraph;
 import graph.WeightedGraph;
+import maze.Juncture;
+import maze.Maze;
 
 public class PublicTests {
 
@@ -68,4 +99,803 @@ public class PublicTests {
 		
 	}
 	
+	@Test
+	public void testBFSAndDFSVisitOrder() {
+		WeightedGraph<String> graph = new WeightedGraph<String>();
+		graph.addVertex("A");
+		graph.addVertex("B");
+		graph.addVertex("C");
+		graph.addVertex("D");
+		graph.addVertex("E");
+		graph.addEdge("A", "B", 1);
+		graph.addEdge("A", "C", 1);
+		graph.addEdge("B", "D", 1);
+		graph.addEdge("C", "D", 1);
+		graph.addEdge("D", "E", 1);
+		RecordingObserver observer = new RecordingObserver();
+		graph.addObserver(observer);
+		graph.DoBFS("A", "E");
+		assertEquals("[A, B, C, D]", observer.visited.toString());
+		
+		observer = new RecordingObserver();
+		graph.addObserver(observer);
+		graph.DoDFS("A", "E");
+		assertEquals("[A, C, D]", observer.visited.toString());
+	}
+	
+	@Test
+	public void testDijkstraFinishesVerticesInCostOrder() {
+		WeightedGraph<String> graph = new WeightedGraph<String>();
+		graph.addVertex("A");
+		graph.addVertex("B");
+		graph.addVertex("C");
+		graph.addVertex("D");
+		graph.addVertex("E");
+		graph.addEdge("A", "B", 1);
+		graph.addEdge("A", "C", 4);
+		graph.addEdge("B", "C", 2);
+		graph.addEdge("B", "D", 5);
+		graph.addEdge("C", "D", 1);
+		RecordingObserver observer = new RecordingObserver();
+		graph.addObserver(observer);
+		graph.DoDijsktra("A", "D");
+		assertEquals("[A=0, B=1, C=3, D=4]", observer.finished.toString());
+		assertEquals("[A, B, C, D]", observer.path.toString());
+		
+		// E can not be reached, so the path to it is empty
+		observer = new RecordingObserver();
+		graph.addObserver(observer);
+		graph.DoDijsktra("A", "E");
+		assertTrue(observer.path.isEmpty());
+	}
+	
+	@Test
+	public void testFreezeCopiesGraph() {
+		WeightedGraph<String> graph = new WeightedGraph<String>();
+		graph.addVertex("A");
+		graph.addVertex("B");
+		graph.addVertex("C");
+		graph.addEdge("A", "B", 1);
+		graph.addEdge("B", "C", 2);
+		GraphSnapshot<String> snapshot = graph.freeze();
+		graph.addEdge("A", "C", 1);
+		assertTrue(snapshot.getWeight("A", "B") == 1);
+		assertTrue(snapshot.getWeight("B", "C") == 2);
+		assertTrue(snapshot.getWeight("A", "C") == null);
+		assertEquals(2, snapshot.getEdgeCount());
+		
+		RecordingObserver observer = new RecordingObserver();
+		snapshot.addObserver(observer);
+		snapshot.DoDijsktra("A", "C");
+		assertEquals("[A=0, B=1, C=3]", observer.finished.toString());
+		assertEquals("[A, B, C]", observer.path.toString());
+	}
+	
+	@Test
+	public void testCompactGraphAddEdgeAndGetWeight() {
+		CompactWeightedGraph<String> graph = new CompactWeightedGraph<String>();
+		int a = graph.addVertex("A");
+		int b = graph.addVertex("B");
+		graph.addVertex("C");
+		graph.addEdge("A", "B", 1);
+		graph.addEdge("A", "C", 2);
+		graph.addEdge("A", "C", 7);
+		assertTrue(graph.getWeight("A", "B") == 1);
+		assertTrue(graph.getWeight("A", "C") == 7);
+		assertTrue(graph.getWeight("B", "A") == null);
+		assertEquals(1, graph.getWeightByIndex(a, b));
+		assertEquals(-1, graph.getWeightByIndex(b, a));
+		boolean caught = false;
+		try {
+			graph.addEdge("A", "X", 1);
+		} catch (IllegalArgumentException e) {
+			caught = true;
+		}
+		assertTrue(caught);
+	}
+	
+	@Test
+	public void testMazeGridGraphMatchesMazeGraph() {
+		Maze maze = new Maze(12, 15, 30, 2020L);
+		MazeGraph graph = new MazeGraph(maze);
+		MazeGridGraph grid = new MazeGridGraph(maze);
+		assertEquals(graph.getVertexCount(), grid.getVertexCount());
+		for (int x = 0; x < maze.getMazeWidth(); x++) {
+			for (int y = 0; y < maze.getMazeHeight(); y++) {
+				Juncture juncture = new Juncture(x, y);
+				assertTrue(grid.containsVertex(juncture));
+				for (Juncture next : new Juncture[] { new Juncture(x, y - 1), new Juncture(x, y + 1),
+						new Juncture(x - 1, y), new Juncture(x + 1, y) }) {
+					if (graph.containsVertex(next)) {
+						assertEquals(graph.getWeight(juncture, next), grid.getWeight(juncture, next));
+					}
+				}
+			}
+		}
+		assertFalse(grid.containsVertex(new Juncture(15, 0)));
+	}
+	
+	@Test
+	public void testAStarFindsLowestCostPath() {
+		WeightedGraph<String> graph = new WeightedGraph<String>();
+		graph.addVertex("A");
+		graph.addVertex("B");
+		graph.addVertex("C");
+		graph.addVertex("D");
+		graph.addEdge("A", "B", 1);
+		graph.addEdge("A", "C", 4);
+		graph.addEdge("B", "C", 2);
+		graph.addEdge("C", "D", 1);
+		graph.addEdge("B", "D", 5);
+		RecordingObserver observer = new RecordingObserver();
+		graph.addObserver(observer);
+		graph.DoAStar("A", "D", new Heuristic<String>() {
+			public int estimate(String vertex, String goal) {
+				return vertex.equals(goal) ? 0 : 1;
+			}
+		});
+		assertEquals("[A, B, C, D]", observer.path.toString());
+		assertEquals("D=4", observer.finished.get(observer.finished.size() - 1));
+		
+		Heuristic<Juncture> manhattan = Heuristic.manhattan(2);
+		assertEquals(14, manhattan.estimate(new Juncture(1, 5), new Juncture(4, 1)));
+	}
+
+	@Test
+	public void testBidirectionalSearchesFindShortestPaths() {
+		WeightedGraph<String> graph = new WeightedGraph<String>();
+		graph.addVertex("A");
+		graph.addVertex("B");
+		graph.addVertex("C");
+		graph.addVertex("D");
+		graph.addVertex("E");
+		graph.addEdge("A", "B", 1);
+		graph.addEdge("A", "C", 4);
+		graph.addEdge("B", "C", 2);
+		graph.addEdge("C", "D", 1);
+		graph.addEdge("B", "D", 5);
+		assertEquals("[A, B, C, D]", graph.DoBidirectionalDijkstra("A", "D").toString());
+		assertEquals("[A, B, D]", graph.DoBidirectionalBFS("A", "D").toString());
+		assertEquals("[A, B, C, D]", graph.freeze().DoBidirectionalDijkstra("A", "D").toString());
+		assertEquals("[]", graph.DoBidirectionalDijkstra("D", "A").toString());
+		assertEquals("[]", graph.DoBidirectionalBFS("A", "E").toString());
+		assertEquals("[C]", graph.DoBidirectionalDijkstra("C", "C").toString());
+	}
+
+	@Test
+	public void testDijkstraToTargetsStopsEarly() {
+		WeightedGraph<String> graph = new WeightedGraph<String>();
+		graph.addVertex("A");
+		graph.addVertex("B");
+		graph.addVertex("C");
+		graph.addVertex("D");
+		graph.addEdge("A", "B", 1);
+		graph.addEdge("A", "C", 4);
+		graph.addEdge("B", "C", 2);
+		graph.addEdge("C", "D", 1);
+		ShortestPath<String> path = graph.DoDijsktraTo("A", "C");
+		assertEquals(3, path.getCost());
+		assertEquals("[A, B, C]", path.getPath().toString());
+
+		Map<String, ShortestPath<String>> paths = graph.DoDijsktraToAll("B", Arrays.asList("D", "A"));
+		assertEquals(3, paths.get("D").getCost());
+		assertEquals("[B, C, D]", paths.get("D").getPath().toString());
+		assertFalse(paths.get("A").isReachable());
+		assertTrue(paths.get("A").getPath().isEmpty());
+	}
+
+	@Test
+	public void testShortestPathTreeAnswersEveryTarget() {
+		WeightedGraph<String> graph = new WeightedGraph<String>();
+		graph.addVertex("A");
+		graph.addVertex("B");
+		graph.addVertex("C");
+		graph.addVertex("D");
+		graph.addVertex("E");
+		graph.addEdge("A", "B", 1);
+		graph.addEdge("A", "C", 4);
+		graph.addEdge("B", "C", 2);
+		graph.addEdge("C", "D", 1);
+		ShortestPathTree<String> tree = graph.DoDijsktra("A", "D");
+		assertEquals(0, tree.distanceTo("A"));
+		assertEquals(3, tree.distanceTo("C"));
+		assertEquals(4, tree.distanceTo("D"));
+		assertEquals("[A, B, C]", tree.pathTo("C").toString());
+		assertEquals("[A, B, C, D]", tree.pathTo("D").toString());
+		assertFalse(tree.hasPathTo("E"));
+		assertEquals(-1, tree.distanceTo("E"));
+		assertTrue(tree.pathTo("E").isEmpty());
+	}
+
+	@Test
+	public void testTreeCacheIsInvalidatedByChanges() {
+		WeightedGraph<String> graph = new WeightedGraph<String>();
+		graph.addVertex("A");
+		graph.addVertex("B");
+		graph.addVertex("C");
+		graph.addEdge("A", "B", 1);
+		graph.addEdge("B", "C", 5);
+		ShortestPathTree<String> tree = graph.getShortestPathTree("A");
+		assertSame(tree, graph.getShortestPathTree("A"));
+		assertEquals(6, tree.distanceTo("C"));
+
+		long version = graph.getVersion();
+		graph.addEdge("A", "C", 2);
+		assertTrue(graph.getVersion() > version);
+		assertNotSame(tree, graph.getShortestPathTree("A"));
+		assertEquals(2, graph.getShortestPathTree("A").distanceTo("C"));
+
+		// with room for one tree, asking for another start drops the first
+		graph.setTreeCacheCapacity(1);
+		tree = graph.getShortestPathTree("A");
+		graph.getShortestPathTree("B");
+		assertNotSame(tree, graph.getShortestPathTree("A"));
+	}
+
+	@Test
+	public void testContractionHierarchyMatchesDijkstra() {
+		Maze maze = new Maze(20, 20, 30, 7L);
+		MazeGraph graph = new MazeGraph(maze);
+		ContractionHierarchy<Juncture> hierarchy = graph.contract();
+		Juncture start = new Juncture(0, 0);
+		ShortestPathTree<Juncture> tree = graph.DoDijsktra(start, start);
+		for (int x = 0; x < 20; x += 3) {
+			for (int y = 0; y < 20; y += 3) {
+				Juncture end = new Juncture(x, y);
+				ShortestPath<Juncture> path = hierarchy.query(start, end);
+				assertEquals(tree.distanceTo(end), path.getCost());
+				assertEquals(start, path.getPath().get(0));
+				assertEquals(end, path.getPath().get(path.getPath().size() - 1));
+			}
+		}
+	}
+
+	@Test
+	public void testLandmarksAreAdmissible() {
+		WeightedGraph<String> graph = new WeightedGraph<String>();
+		String[] names = { "A", "B", "C", "D", "E", "F" };
+		for (String name : names) {
+			graph.addVertex(name);
+		}
+		graph.addEdge("A", "B", 2);
+		graph.addEdge("B", "C", 3);
+		graph.addEdge("C", "D", 1);
+		graph.addEdge("D", "A", 4);
+		graph.addEdge("B", "E", 7);
+		graph.addEdge("E", "F", 1);
+		graph.addEdge("C", "F", 9);
+		for (LandmarkSelection selection : LandmarkSelection.values()) {
+			Landmarks<String> landmarks = Landmarks.select(graph, 2, selection, 1L);
+			assertEquals(2, landmarks.getLandmarks().size());
+			for (String from : names) {
+				ShortestPathTree<String> tree = graph.DoDijsktra(from, from);
+				for (String to : names) {
+					if (tree.hasPathTo(to)) {
+						assertTrue(landmarks.estimate(from, to) <= tree.distanceTo(to));
+					}
+				}
+			}
+			RecordingObserver observer = new RecordingObserver();
+			graph.addObserver(observer);
+			graph.DoAStar("A", "F", landmarks);
+			assertEquals("[A, B, E, F]", observer.path.toString());
+		}
+	}
+	
+	@Test
+	public void testMazeHierarchyMatchesDijkstra() {
+		Maze maze = new Maze(20, 20, 30, 7L);
+		MazeHierarchy hierarchy = new MazeHierarchy(maze, 4);
+		MazeGridGraph grid = new MazeGridGraph(maze);
+		Juncture start = new Juncture(0, 0);
+		Juncture end = new Juncture(19, 19);
+		assertEquals(grid.DoDijsktraTo(start, end).getCost(), hierarchy.findPath(start, end).getCost());
+		
+		// taking a wall away on a cluster border rebuilds only that border's clusters
+		hierarchy.setWallToRight(3, 5, false);
+		hierarchy.setWallBelow(10, 7, false);
+		ShortestPath<Juncture> path = hierarchy.findPath(start, end);
+		assertEquals(grid.DoDijsktraTo(start, end).getCost(), path.getCost());
+		assertEquals(start, path.getPath().get(0));
+		assertEquals(end, path.getPath().get(path.getPath().size() - 1));
+		for (int i = 1; i < path.getPath().size(); i++) {
+			assertNotNull(grid.getWeight(path.getPath().get(i - 1), path.getPath().get(i)));
+		}
+	}
+	
+	@Test
+	public void testJumpPointSearchFindsFewestSteps() {
+		Maze maze = new Maze(25, 30, 40, 15L);
+		MazeGridGraph grid = new MazeGridGraph(maze);
+		Juncture[] junctures = { new Juncture(0, 0), new Juncture(29, 24), new Juncture(12, 3), new Juncture(4, 20) };
+		for (Juncture start : junctures) {
+			for (Juncture end : junctures) {
+				List<Juncture> path = grid.DoJumpPointSearch(start, end);
+				assertEquals(grid.DoBidirectionalBFS(start, end).size(), path.size());
+				assertEquals(start, path.get(0));
+				assertEquals(end, path.get(path.size() - 1));
+				for (int i = 1; i < path.size(); i++) {
+					assertNotNull(grid.getWeight(path.get(i - 1), path.get(i)));
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testParallelBFSFindsFewestEdges() {
+		Maze maze = new Maze(40, 40, 60, 16L);
+		MazeGridGraph grid = new MazeGridGraph(maze);
+		Juncture start = new Juncture(20, 20);
+		ShortestPathTree<Juncture> tree = grid.DoParallelBFS(start);
+		assertEquals(0, tree.distanceTo(start));
+		for (int x = 0; x < 40; x += 7) {
+			for (int y = 0; y < 40; y += 3) {
+				Juncture end = new Juncture(x, y);
+				List<Juncture> path = tree.pathTo(end);
+				assertEquals(grid.DoBidirectionalBFS(start, end).size(), path.size());
+				assertEquals(path.size() - 1, tree.distanceTo(end));
+			}
+		}
+	}
+	
+	@Test
+	public void testDeltaSteppingMatchesDijkstra() {
+		Maze maze = new Maze(40, 40, 60, 17L);
+		GraphSnapshot<Juncture> snapshot = new MazeGraph(maze).freeze();
+		Juncture start = new Juncture(3, 30);
+		ShortestPathTree<Juncture> expected = snapshot.DoDijsktra(start, start);
+		for (int delta : new int[] { 1, 4, 100 }) {
+			ShortestPathTree<Juncture> tree = snapshot.DoDeltaStepping(start, delta);
+			for (int x = 0; x < 40; x++) {
+				for (int y = 0; y < 40; y++) {
+					Juncture end = new Juncture(x, y);
+					assertEquals(expected.distanceTo(end), tree.distanceTo(end));
+				}
+			}
+		}
+		assertEquals(expected.distanceTo(new Juncture(39, 0)),
+				snapshot.DoDeltaStepping(start).distanceTo(new Juncture(39, 0)));
+	}
+	
+	@Test
+	public void testDeltaSteppingWithHugeWeightsAndSmallDelta() {
+		WeightedGraph<String> graph = new WeightedGraph<String>();
+		graph.addVertex("a");
+		graph.addVertex("b");
+		graph.addVertex("c");
+		graph.addVertex("d");
+		graph.addVertex("e");
+		graph.addEdge("a", "b", 1);
+		graph.addEdge("b", "c", 1000000000);
+		graph.addEdge("a", "d", Integer.MAX_VALUE - 1);
+		// every path to e costs more than Integer.MAX_VALUE
+		graph.addEdge("d", "e", 10);
+		ShortestPathTree<String> tree = graph.DoDeltaStepping("a", 1);
+		assertEquals(1, tree.distanceTo("b"));
+		assertEquals(1000000001, tree.distanceTo("c"));
+		assertEquals(Integer.MAX_VALUE - 1, tree.distanceTo("d"));
+		assertEquals(-1, tree.distanceTo("e"));
+		assertEquals(Arrays.asList("a", "b", "c"), tree.pathTo("c"));
+		assertEquals(-1, graph.DoDeltaStepping("a").distanceTo("e"));
+	}
+	
+	@Test
+	public void testSolveAllMatchesDijkstraTo() {
+		Maze maze = new Maze(30, 30, 40, 18L);
+		GraphSnapshot<Juncture> snapshot = new MazeGraph(maze).freeze();
+		List<Query<Juncture>> queries = new ArrayList<Query<Juncture>>();
+		for (int i = 0; i < 30; i++) {
+			queries.add(new Query<Juncture>(new Juncture(i, 0), new Juncture(29 - i, 29)));
+		}
+		queries.add(new Query<Juncture>(new Juncture(5, 5), new Juncture(50, 50)));
+		List<ShortestPath<Juncture>> results = snapshot.solveAll(queries);
+		assertEquals(queries.size(), results.size());
+		for (int i = 0; i < queries.size(); i++) {
+			Query<Juncture> query = queries.get(i);
+			assertEquals(query.getEnd(), results.get(i).getTarget());
+			assertEquals(snapshot.DoDijsktraTo(query.getStart(), query.getEnd()).getCost(), results.get(i).getCost());
+		}
+		assertFalse(results.get(30).isReachable());
+	}
+	
+	@Test
+	public void testSearchWorkspaceCanBeReused() {
+		WeightedGraph<String> plain = new WeightedGraph<String>();
+		WeightedGraph<String> reusing = new WeightedGraph<String>();
+		for (WeightedGraph<String> graph : Arrays.asList(plain, reusing)) {
+			for (int i = 0; i < 30; i++) {
+				graph.addVertex("v" + i);
+			}
+			for (int i = 0; i < 30; i++) {
+				graph.addEdge("v" + i, "v" + (i + 1) % 30, 1 + i % 4);
+				graph.addEdge("v" + i, "v" + (7 * i + 3) % 30, 2 + i % 5);
+			}
+		}
+		RecordingObserver plainObserver = new RecordingObserver();
+		RecordingObserver reusingObserver = new RecordingObserver();
+		plain.addObserver(plainObserver);
+		reusing.addObserver(reusingObserver);
+		
+		// the same visits and costs, in the same order, with one workspace throughout
+		SearchWorkspace workspace = new SearchWorkspace();
+		for (int i = 0; i < 30; i++) {
+			String start = "v" + i;
+			String end = "v" + (11 * i + 5) % 30;
+			plain.DoBFS(start, end);
+			reusing.DoBFS(start, end, workspace);
+			plain.DoDFS(start, end);
+			reusing.DoDFS(start, end, workspace);
+			assertEquals(plain.DoDijsktraTo(start, end).getCost(), reusing.DoDijsktraTo(start, end, workspace).getCost());
+		}
+		assertEquals(plainObserver.visited, reusingObserver.visited);
+	}
+	
+	@Test
+	public void testTraversalStreamsFollowVisitOrder() {
+		WeightedGraph<String> graph = new WeightedGraph<String>();
+		for (int i = 0; i < 25; i++) {
+			graph.addVertex("v" + i);
+		}
+		for (int i = 0; i < 25; i++) {
+			graph.addEdge("v" + i, "v" + (3 * i + 1) % 25, 1);
+			graph.addEdge("v" + i, "v" + (5 * i + 2) % 25, 1);
+		}
+		RecordingObserver observer = new RecordingObserver();
+		graph.addObserver(observer);
+		
+		graph.DoBFS("v0", "none");
+		assertEquals(observer.visited, graph.bfs("v0").collect(Collectors.toList()));
+		observer.visited.clear();
+		graph.DoDFS("v0", "none");
+		assertEquals(observer.visited, graph.dfs("v0").collect(Collectors.toList()));
+		assertEquals(observer.visited.subList(0, 4), graph.dfs("v0").limit(4).collect(Collectors.toList()));
+		assertEquals("v0", graph.bfs("v0").iterator().next());
+	}
+	
+	@Test
+	public void testAsyncObserverDeliversEventsInOrder() throws InterruptedException {
+		WeightedGraph<String> graph = new WeightedGraph<String>();
+		for (int i = 0; i < 40; i++) {
+			graph.addVertex("v" + i);
+		}
+		for (int i = 0; i < 40; i++) {
+			graph.addEdge("v" + i, "v" + (7 * i + 3) % 40, 1 + i % 5);
+			graph.addEdge("v" + i, "v" + (i + 1) % 40, 2);
+		}
+		RecordingObserver direct = new RecordingObserver();
+		RecordingObserver delayed = new RecordingObserver();
+		AsyncObserver<String> blocking = new AsyncObserver<String>(delayed, 2, BackpressurePolicy.BLOCK);
+		final List<GraphEvent.Type> types = new ArrayList<GraphEvent.Type>();
+		AsyncObserver<String> coalescing = new AsyncObserver<String>(new GraphEventListener<String>() {
+			public void notifyEvents(List<GraphEvent<String>> events) {
+				for (GraphEvent<String> event : events) {
+					if (!event.isProgress()) {
+						types.add(event.getType());
+					}
+				}
+			}
+		}, 1, 1, BackpressurePolicy.COALESCE);
+		graph.addObserver(direct);
+		graph.addObserver(blocking);
+		graph.addObserver(coalescing);
+		
+		graph.DoBFS("v0", "v39");
+		graph.DoDijsktra("v0", "v39");
+		blocking.close();
+		coalescing.close();
+		assertEquals(direct.visited, delayed.visited);
+		assertEquals(direct.finished, delayed.finished);
+		assertEquals(direct.path, delayed.path);
+		assertEquals(0, blocking.getDroppedCount());
+		assertEquals(Arrays.asList(GraphEvent.Type.BFS_BEGUN, GraphEvent.Type.SEARCH_OVER,
+				GraphEvent.Type.DIJKSTRA_BEGUN, GraphEvent.Type.DIJKSTRA_OVER), types);
+	}
+	
+	@Test
+	public void testShutdownNowDoesNotWaitForTheListener() throws InterruptedException {
+		final List<String> visited = new ArrayList<String>();
+		AsyncObserver<String> slow = new AsyncObserver<String>(new RecordingObserver() {
+			public void notifyVisit(String vertex) {
+				synchronized (visited) {
+					visited.add(vertex);
+				}
+				try {
+					Thread.sleep(10000);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}, 100, BackpressurePolicy.BLOCK);
+		for (int i = 0; i < 50; i++) {
+			slow.notifyVisit("v" + i);
+		}
+		long start = System.nanoTime();
+		slow.shutdownNow();
+		assertTrue(System.nanoTime() - start < 1000000000L);
+		// later notifications are ignored rather than rejected
+		slow.notifyVisit("late");
+		slow.close();
+		assertTrue(System.nanoTime() - start < 5000000000L);
+		synchronized (visited) {
+			assertTrue(visited.size() <= 1);
+		}
+	}
+	
+	@Test
+	public void testSearchStatsCountTheWork() {
+		WeightedGraph<String> graph = new WeightedGraph<String>();
+		for (int i = 0; i < 30; i++) {
+			graph.addVertex("v" + i);
+		}
+		for (int i = 0; i < 30; i++) {
+			graph.addEdge("v" + i, "v" + (i + 1) % 30, 3);
+			graph.addEdge("v" + i, "v" + (11 * i + 4) % 30, 1 + i % 7);
+		}
+		RecordingObserver observer = new RecordingObserver();
+		graph.addObserver(observer);
+		final List<SearchStats> reported = new ArrayList<SearchStats>();
+		SearchStatsListener listener = new SearchStatsListener() {
+			public void notifySearchStats(SearchStats stats) {
+				reported.add(stats);
+			}
+		};
+		graph.addStatsListener(listener);
+		
+		graph.DoBFS("v0", "none");
+		SearchStats stats = reported.get(0);
+		assertEquals(SearchStats.Algorithm.BFS, stats.getAlgorithm());
+		assertEquals(observer.visited.size(), stats.getVerticesSettled());
+		assertEquals(60, stats.getEdgesRelaxed());
+		assertEquals(30, stats.getQueueInserts());
+		assertEquals(30, stats.getQueuePolls());
+		assertTrue(stats.getPeakFrontier() >= 1 && stats.getPeakFrontier() <= 30);
+		assertEquals(stats.getTotalNanos(), stats.getSetupNanos() + stats.getSearchNanos() + stats.getResultNanos());
+		
+		graph.DoDijsktra("v0", "v29");
+		stats = reported.get(1);
+		assertEquals(SearchStats.Algorithm.DIJKSTRA, stats.getAlgorithm());
+		assertEquals(observer.finished.size(), stats.getVerticesSettled());
+		assertEquals(30, stats.getQueueInserts());
+		assertEquals(30 + 30 + stats.getDecreaseKeys(), stats.getQueueOperations());
+		
+		graph.removeStatsListener(listener);
+		graph.DoDFS("v0", "v29");
+		assertEquals(2, reported.size());
+	}
+	
+	@Test
+	public void testConcurrentGraphTakesWritesDuringSearches() throws InterruptedException {
+		final ConcurrentWeightedGraph<String> graph = new ConcurrentWeightedGraph<String>();
+		WeightedGraph<String> expected = new WeightedGraph<String>();
+		for (int i = 0; i < 200; i++) {
+			graph.addVertex("v" + i);
+			expected.addVertex("v" + i);
+		}
+		for (int i = 0; i < 200; i++) {
+			for (int j = 1; j <= 4; j++) {
+				expected.addEdge("v" + i, "v" + (i + 37 * j) % 200, 1 + (i + j) % 9);
+			}
+		}
+		Thread[] writers = new Thread[4];
+		for (int t = 0; t < writers.length; t++) {
+			final int j = t + 1;
+			writers[t] = new Thread(new Runnable() {
+				public void run() {
+					for (int i = 0; i < 200; i++) {
+						graph.addEdge("v" + i, "v" + (i + 37 * j) % 200, 1 + (i + j) % 9);
+					}
+				}
+			});
+			writers[t].start();
+		}
+		// searches running while the edges arrive must not fail
+		RecordingObserver observer = new RecordingObserver();
+		graph.addObserver(observer);
+		for (int i = 0; i < 20; i++) {
+			graph.DoDijsktra("v" + i, "v199");
+			graph.DoBFS("v" + i, "v199");
+		}
+		for (Thread writer : writers) {
+			writer.join();
+		}
+		graph.removeObserver(observer);
+		
+		for (int i = 0; i < 200; i += 13) {
+			assertEquals(expected.DoDijsktraTo("v0", "v" + i).getCost(), graph.DoDijsktraTo("v0", "v" + i).getCost());
+			assertEquals(expected.getWeight("v" + i, "v" + (i + 37) % 200), graph.getWeight("v" + i, "v" + (i + 37) % 200));
+		}
+		observer.visited.clear();
+		graph.DoBFS("v0", "v199");
+		assertTrue(observer.visited.isEmpty());
+	}
+	
+	@Test
+	public void testPinnedVersionIgnoresLaterChanges() {
+		VersionedGraph<String> graph = new VersionedGraph<String>();
+		for (int i = 0; i < 100; i++) {
+			graph.addVertex("v" + i);
+		}
+		for (int i = 0; i < 99; i++) {
+			graph.addEdge("v" + i, "v" + (i + 1), 10);
+		}
+		GraphVersion<String> pinned = graph.getCurrentVersion();
+		assertEquals(990, pinned.DoDijsktraTo("v0", "v99").getCost());
+		
+		graph.addVertex("shortcut");
+		graph.addEdge("v0", "shortcut", 1);
+		graph.addEdge("shortcut", "v99", 1);
+		graph.addEdge("v0", "v1", 3);
+		assertEquals(pinned.getVersion() + 4, graph.getVersion());
+		assertEquals(2, graph.DoDijsktraTo("v0", "v99").getCost());
+		assertEquals(Integer.valueOf(3), graph.getWeight("v0", "v1"));
+		
+		// the pinned version still sees the graph as it was
+		assertEquals(990, pinned.DoDijsktraTo("v0", "v99").getCost());
+		assertEquals(Integer.valueOf(10), pinned.getWeight("v0", "v1"));
+		assertFalse(pinned.containsVertex("shortcut"));
+		assertEquals(100, pinned.getVertexCount());
+		assertEquals(Arrays.asList("v0", "shortcut", "v99"), graph.getCurrentVersion().DoBidirectionalDijkstra("v0", "v99"));
+	}
+	
+	@Test
+	public void testBuilderMakesTheSameGraphAsAddEdge() {
+		WeightedGraph<String> graph = new WeightedGraph<String>();
+		GraphBuilder<String> builder = new GraphBuilder<String>(30, 10);
+		for (int i = 0; i < 30; i++) {
+			graph.addVertex("v" + i);
+			assertEquals(i, builder.addVertex("v" + i));
+		}
+		int[] from = new int[200];
+		int[] to = new int[200];
+		int[] weights = new int[200];
+		for (int i = 0; i < 200; i++) {
+			from[i] = i % 30;
+			to[i] = (7 * i + i / 60) % 30;
+			weights[i] = 1 + (i * 13) % 9;
+			graph.addEdge("v" + from[i], "v" + to[i], weights[i]);
+		}
+		builder.addEdges(from, to, weights);
+		
+		// a bad batch is turned down as a whole
+		try {
+			builder.addEdges(new int[] { 0, 1 }, new int[] { 1, 30 }, new int[] { 1, 1 });
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		assertEquals(200, builder.getEdgeCount());
+		
+		WeightedGraph<String> built = builder.build();
+		assertEquals(graph.getVersion(), built.getVersion());
+		assertEquals(graph.getMinEdgeWeight(), built.getMinEdgeWeight());
+		RecordingObserver expected = new RecordingObserver();
+		RecordingObserver actual = new RecordingObserver();
+		graph.addObserver(expected);
+		built.addObserver(actual);
+		graph.DoDFS("v0", "v29");
+		built.DoDFS("v0", "v29");
+		graph.DoDijsktra("v0", "v29");
+		built.DoDijsktra("v0", "v29");
+		assertEquals(expected.visited, actual.visited);
+		assertEquals(expected.finished, actual.finished);
+		assertEquals(expected.path, actual.path);
+		
+		GraphSnapshot<String> frozen = builder.freeze();
+		for (int i = 0; i < 30; i++) {
+			for (int j = 0; j < 30; j++) {
+				assertEquals(graph.getWeight("v" + i, "v" + j), frozen.getWeight("v" + i, "v" + j));
+			}
+		}
+	}
+	
+	@Test
+	public void testCostsPastMaxValueCountAsUnreachable() {
+		WeightedGraph<String> graph = new WeightedGraph<String>();
+		for (String vertex : new String[] { "a", "b", "c", "e", "f" }) {
+			graph.addVertex(vertex);
+		}
+		graph.addEdge("a", "b", Integer.MAX_VALUE - 1);
+		graph.addEdge("b", "f", 10);
+		graph.addEdge("a", "e", 5);
+		graph.addEdge("e", "c", 5);
+		graph.addEdge("b", "c", 10);
+		
+		ShortestPathTree<String> tree = graph.DoDijsktra("a", "f");
+		assertEquals(Integer.MAX_VALUE - 1, tree.distanceTo("b"));
+		assertEquals(10, tree.distanceTo("c"));
+		assertEquals(-1, tree.distanceTo("f"));
+		assertTrue(tree.pathTo("f").isEmpty());
+		assertEquals(-1, graph.DoDijsktraTo("a", "f").getCost());
+		assertEquals(10, graph.DoDijsktraTo("a", "c").getCost());
+		assertTrue(graph.DoBidirectionalDijkstra("a", "f").isEmpty());
+		assertEquals(Arrays.asList("a", "e", "c"), graph.DoBidirectionalDijkstra("a", "c"));
+		
+		RecordingObserver observer = new RecordingObserver();
+		graph.addObserver(observer);
+		graph.DoAStar("a", "f", new Heuristic<String>() {
+			public int estimate(String vertex, String goal) {
+				return 0;
+			}
+		});
+		assertTrue(observer.path.isEmpty());
+	}
+	
+	@Test
+	public void testHierarchyCostsPastMaxValueCountAsUnreachable() {
+		WeightedGraph<String> graph = new WeightedGraph<String>();
+		for (String vertex : new String[] { "a", "b", "c", "d" }) {
+			graph.addVertex(vertex);
+		}
+		graph.addEdge("d", "b", 16);
+		graph.addEdge("c", "a", Integer.MAX_VALUE - 1);
+		graph.addEdge("a", "d", Integer.MAX_VALUE - 3);
+		ContractionHierarchy<String> hierarchy = graph.contract();
+		for (String start : new String[] { "a", "b", "c", "d" }) {
+			for (String end : new String[] { "a", "b", "c", "d" }) {
+				assertEquals(graph.DoDijsktraTo(start, end).getCost(), hierarchy.query(start, end).getCost());
+			}
+		}
+		assertEquals(-1, hierarchy.query("c", "b").getCost());
+		assertEquals(16, hierarchy.query("d", "b").getCost());
+		assertEquals(Integer.MAX_VALUE - 3, hierarchy.query("a", "d").getCost());
+	}
+	
+	@Test
+	public void testBucketQueueEngineHandlesHugeWeights() {
+		WeightedGraph<String> graph = new WeightedGraph<String>();
+		for (String vertex : new String[] { "a", "b", "c", "d" }) {
+			graph.addVertex(vertex);
+		}
+		graph.addEdge("a", "b", 1000000000);
+		graph.addEdge("b", "c", 1000000000);
+		graph.addEdge("a", "c", Integer.MAX_VALUE - 1);
+		graph.addEdge("c", "d", 7);
+		ShortestPathTree<String> buckets = graph.DoDijsktra("a", "d", ShortestPathEngine.BUCKET_QUEUE);
+		ShortestPathTree<String> heap = graph.DoDijsktra("a", "d", ShortestPathEngine.BINARY_HEAP);
+		for (String vertex : new String[] { "a", "b", "c", "d" }) {
+			assertEquals(heap.distanceTo(vertex), buckets.distanceTo(vertex));
+		}
+		assertEquals(2000000007, buckets.distanceTo("d"));
+		assertEquals(Arrays.asList("a", "b", "c", "d"), buckets.pathTo("d"));
+	}
+	
+	/* Remembers everything the graph reports while running an algorithm. */
+	private static class RecordingObserver implements GraphAlgorithmObserver<String> {
+		
+		private List<String> visited = new ArrayList<String>();
+		private List<String> finished = new ArrayList<String>();
+		private List<String> path;
+		
+		public void notifyDFSHasBegun() {
+		}
+		
+		public void notifyBFSHasBegun() {
+		}
+		
+		public void notifyVisit(String vertexBeingVisited) {
+			visited.add(vertexBeingVisited);
+		}
+		
+		public void notifySearchIsOver() {
+		}
+		
+		public void notifyDijkstraHasBegun() {
+		}
+		
+		public void notifyDijkstraVertexFinished(String vertexAddedToFinishedSet, Integer costOfPath) {
+			finished.add(vertexAddedToFinishedSet + "=" + costOfPath);
+		}
+		
+		public void notifyDijkstraIsOver(List<String> path) {
+			this.path = path;
+		}
+		
+		public void notifyAStarVertexFinished(String vertexFinished, Integer costOfPath) {
+			finished.add(vertexFinished + "=" + costOfPath);
+		}
+		
+		public void notifyAStarIsOver(List<String> path) {
+			this.path = path;
+		}
+	}
+	
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package tests;
+
+import graph.ContractionHierarchy;
+import graph.GraphSnapshot;
+import graph.MazeGraph;
+import graph.MazeGridGraph;
+import graph.MazeHierarchy;
+import graph.ShortestPathEngine;
+import maze.Juncture;
+import maze.Maze;
+
+/**
+ * Times Dijkstra's algorithm on large MazeGraphs, on frozen snapshots of them,
+ * and on MazeGridGraph views of the same mazes, with each ShortestPathEngine,
+ * and compares them with queries on a ContractionHierarchy and a
+ * MazeHierarchy. This is not a unit test; run it as a program. The optional
+ * arguments are the maze sizes to try (default 250, 500 and 1000).
+ */
+public class ShortestPathBenchmark {
+
+	private static final int WARMUP_RUNS = 2;
+	private static final int TIMED_RUNS = 5;
+
+	public static void main(String[] args) throws InterruptedException {
+		final int[] sizes;
+		if (args.length == 0) {
+			sizes = new int[] { 250, 500, 1000 };
+		} else {
+			sizes = new int[args.length];
+			for (int i = 0; i < args.length; i++) {
+				sizes[i] = Integer.parseInt(args[i]);
+			}
+		}
+
+		// Maze generation is recursive, so give it a thread with a big stack
+		Thread thread = new Thread(null, new Runnable() {
+			public void run() {
+				for (int size : sizes) {
+					runOneSize(size);
+				}
+			}
+		}, "benchmark", 1L << 30);
+		thread.start();
+		thread.join();
+	}
+
+	private static void runOneSize(int size) {
+		Maze maze = new Maze(size, size, 0, 132L);
+		final MazeGraph graph = new MazeGraph(maze);
+		final GraphSnapshot<Juncture> snapshot = graph.freeze();
+		final MazeGridGraph grid = new MazeGridGraph(maze);
+		final Juncture start = new Juncture(0, 0);
+		final Juncture end = new Juncture(size - 1, size - 1);
+
+		System.out.println(size + "x" + size + " maze, max edge weight " + graph.getMaxEdgeWeight());
+		for (final ShortestPathEngine engine : ShortestPathEngine.values()) {
+			time("WeightedGraph " + engine, new Runnable() {
+				public void run() {
+					graph.DoDijsktra(start, end, engine);
+				}
+			});
+			time("GraphSnapshot " + engine, new Runnable() {
+				public void run() {
+					snapshot.DoDijsktra(start, end, engine);
+				}
+			});
+			time("MazeGridGraph " + engine, new Runnable() {
+				public void run() {
+					grid.DoDijsktra(start, end, engine);
+				}
+			});
+		}
+
+		final ContractionHierarchy<Juncture> hierarchy = graph.contract();
+		System.out.println("  contraction hierarchy: " + hierarchy.getPreprocessingMillis() + " ms to build, "
+				+ hierarchy.getShortcutCount() + " shortcuts");
+		time("ContractionHierarchy query", new Runnable() {
+			public void run() {
+				hierarchy.query(start, end);
+			}
+		});
+
+		long begin = System.nanoTime();
+		final MazeHierarchy clusters = new MazeHierarchy(maze);
+		System.out.println("  maze hierarchy: " + (System.nanoTime() - begin) / 1000000 + " ms to build, "
+				+ clusters.getTransitionCount() + " transitions");
+		time("MazeHierarchy query", new Runnable() {
+			public void run() {
+				clusters.findPath(start, end);
+			}
+		});
+	}
+
+	private static void time(String label, Runnable run) {
+		for (int i = 0; i < WARMUP_RUNS; i++) {
+			run.run();
+		}
+		long begin = System.nanoTime();
+		for (int i = 0; i < TIMED_RUNS; i++) {
+			run.run();
+		}
+		long average = (System.nanoTime() - begin) / TIMED_RUNS;
+		System.out.printf("  %-28s %8.1f ms%n", label, average / 1e6);
+	}
+}